@@ -1,4 +1,5 @@
 import express, { Request, Response } from 'express';
+import mongoose from 'mongoose';
 import nacl from 'tweetnacl';
 import dotenv from 'dotenv';
 import { Connection, PublicKey } from '@solana/web3.js';
@@ -10,9 +11,12 @@ import { errorHandlerAsync } from '../middleware/errorHandler.ts';
 import { validateBody, validateQuery } from '../middleware/validator.ts';
 import {
   whitelistQuerySchema,
+  chatMessagesQuerySchema,
+  chatFeedsBatchSchema,
   revealServerSchema,
   rewardPlayerSchema,
-  chatMessageSchema
+  chatMessageSchema,
+  chatBatchSchema
 } from './schemas/minecraft.ts';
 import { ApiError, successResponse } from '../middleware/types/errors.ts';
 
@@ -45,6 +49,65 @@ router.get(
   })
 );
 
+router.get(
+  '/messages',
+  validateQuery(chatMessagesQuerySchema),
+  errorHandlerAsync(async (req: Request, res: Response) => {
+    const { name, after } = req.query;
+    const limit = (req.query.limit as unknown as number | undefined) || 100;
+
+    const challenge = await ChallengeModel.findOne(
+      { name: { $regex: name, $options: 'i' } },
+      {
+        name: 1
+      }
+    ).lean();
+
+    if (!challenge) {
+      throw ApiError.notFound('Challenge not found');
+    }
+
+    // Only user messages newer than the cursor; without a cursor return the latest page
+    const query: { [key: string]: any } = { challenge: challenge.name, role: 'user' };
+    if (after) {
+      query._id = { $gt: new mongoose.Types.ObjectId(after as string) };
+    }
+
+    const messages = await DatabaseService.getFullChatHistory(
+      query,
+      { _id: 1, role: 1, content: 1, date: 1 },
+      { _id: after ? 1 : -1 },
+      limit
+    );
+
+    if (!messages) {
+      throw ApiError.internalError('Error getting chat history');
+    }
+
+    return res
+      .status(200)
+      .json(successResponse({ messages: after ? messages : messages.reverse() }));
+  })
+);
+
+router.post(
+  '/messages/batch',
+  validateBody(chatFeedsBatchSchema),
+  errorHandlerAsync(async (req: Request, res: Response) => {
+    const { feeds } = req.body;
+    const limit = req.body.limit || 100;
+
+    // One request covers every challenge a server relays
+    const results = await DatabaseService.getChallengeFeeds(feeds, limit);
+
+    if (!results) {
+      throw ApiError.internalError('Error getting chat history');
+    }
+
+    return res.status(200).json(successResponse({ feeds: results }));
+  })
+);
+
 router.post(
   '/reveal',
   validateBody(revealServerSchema),
@@ -179,12 +242,29 @@ router.post(
   '/reward',
   validateBody(rewardPlayerSchema),
   errorHandlerAsync(async (req, res) => {
-    const { username, secret } = req.body;
+    const { username, secret, claimId } = req.body;
 
     if (secret !== ipcSecret) {
       throw ApiError.unauthorized('Invalid secret');
     }
 
+    // A retried claim gets the original outcome instead of a second conclusion
+    if (claimId) {
+      const previous = await ChallengeModel.findOne(
+        { 'reward_claim.claim_id': claimId },
+        { reward_claim: 1 }
+      ).lean();
+
+      if (previous?.reward_claim?.transaction) {
+        return res
+          .status(200)
+          .json(successResponse({ transaction: previous.reward_claim.transaction }));
+      }
+      if (previous) {
+        return res.status(202).json(successResponse({ pending: true }));
+      }
+    }
+
     // Find active tournament
     const challenge = await ChallengeModel.findOne({
       status: 'active',
@@ -211,11 +291,38 @@ router.post(
       throw ApiError.notFound('Tournament program info not found');
     }
 
-    // Conclude tournament on-chain with winner's address
+    // Reserve the reward so concurrent or repeated claims can't conclude the tournament twice
+    const reserved = await ChallengeModel.updateOne(
+      { _id: challenge._id, reward_claim: { $exists: false } },
+      { $set: { reward_claim: { claim_id: claimId, username, date: new Date() } } }
+    );
+
+    if (reserved.modifiedCount === 0) {
+      throw ApiError.conflict('Reward has already been claimed');
+    }
+
+    // Conclude tournament on-chain with winner's address; a throw counts as not concluded
     const blockchainService = new BlockchainService(solanaRpc, programId);
-    const concluded = await blockchainService.concludeTournament(
-      tournamentPDA,
-      winnerEntry.address // Using the address from whitelist instead of username
+    const concluded = await blockchainService
+      .concludeTournament(
+        tournamentPDA,
+        winnerEntry.address // Using the address from whitelist instead of username
+      )
+      .catch((error) => {
+        console.error('Error concluding tournament:', error);
+        return null;
+      });
+
+    if (!concluded) {
+      // Release the reservation so the claim can be retried
+      await ChallengeModel.updateOne({ _id: challenge._id }, { $unset: { reward_claim: 1 } });
+      throw ApiError.internalError('Failed to conclude tournament');
+    }
+
+    // Record the payout before anything else can fail, so a retried claim gets this transaction
+    await ChallengeModel.updateOne(
+      { _id: challenge._id },
+      { $set: { 'reward_claim.transaction': concluded } }
     );
 
     // Add victory message to chat
@@ -232,9 +339,7 @@ router.post(
     await DatabaseService.createChat(victoryMessage);
 
     // Update challenge status
-    await DatabaseService.updateChallenge(challenge._id!, {
-      status: 'concluded'
-    });
+    await DatabaseService.updateChallenge(challenge._id!, { status: 'concluded' });
 
     return res.status(200).json(successResponse({ transaction: concluded }));
   })
@@ -282,4 +387,45 @@ router.post(
   })
 );
 
+router.post(
+  '/chat/batch',
+  validateBody(chatBatchSchema),
+  errorHandlerAsync(async (req, res) => {
+    const { messages, secret } = req.body;
+
+    if (secret !== ipcSecret) {
+      throw ApiError.unauthorized('Invalid secret');
+    }
+
+    // Find active game challenge
+    const challenge = await ChallengeModel.findOne({
+      game: { $exists: true },
+      status: 'active'
+    });
+
+    if (!challenge) {
+      throw ApiError.notFound('No active game challenge found');
+    }
+
+    // Stored in batch order, one millisecond apart, so sorting by date keeps the batch order
+    const base = Date.now();
+    const saved = await DatabaseService.createChats(
+      messages.map((message: { username: string; content: string }, i: number) => ({
+        challenge: challenge.name!,
+        role: message.username === 'viral_steve' ? 'assistant' : 'player',
+        content: message.content,
+        address: message.username,
+        display_name: message.username,
+        date: new Date(base + i)
+      }))
+    );
+
+    if (!saved) {
+      throw ApiError.internalError('Error saving chat messages');
+    }
+
+    return res.status(200).json(successResponse({ count: saved.length }));
+  })
+);
+
 export { router as minecraftApi };
@@ -10,6 +10,60 @@ export const whitelistQuerySchema: ValidationSchema = {
   }
 };
 
+/**
+ * Schema for incremental chat message query parameters
+ */
+export const chatMessagesQuerySchema: ValidationSchema = {
+  name: {
+    required: true,
+    rules: [ValidationRules.isString(), ValidationRules.minLength(1)]
+  },
+  after: {
+    required: false,
+    rules: [
+      ValidationRules.isString(),
+      ValidationRules.pattern(/^[a-f0-9]{24}$/i, 'Must be a valid message id')
+    ]
+  },
+  limit: {
+    required: false,
+    rules: [ValidationRules.isQueryNumber(1, 500)]
+  }
+};
+
+/**
+ * Schema for polling several challenges' messages at once
+ */
+export const chatFeedsBatchSchema: ValidationSchema = {
+  feeds: {
+    required: true,
+    rules: [
+      ValidationRules.isArray(),
+      ValidationRules.isNonEmptyArray(),
+      ValidationRules.custom((value) => value.length <= 20, 'Must contain at most 20 challenges'),
+      ValidationRules.custom(
+        (value) =>
+          value.every(
+            (feed: any) =>
+              typeof feed?.name === 'string' &&
+              feed.name.length > 0 &&
+              (feed.after === undefined || /^[a-f0-9]{24}$/i.test(feed.after))
+          ),
+        'Each feed must have a challenge name and an optional valid message id'
+      )
+    ]
+  },
+  limit: {
+    required: false,
+    rules: [
+      ValidationRules.custom(
+        (value) => Number.isInteger(value) && value >= 1 && value <= 500,
+        'Must be between 1 and 500'
+      )
+    ]
+  }
+};
+
 /**
  * Schema for revealing server IP
  */
@@ -50,6 +104,43 @@ export const rewardPlayerSchema: ValidationSchema = {
       ValidationRules.isValidName()
     ]
   },
+  secret: {
+    required: true,
+    rules: [ValidationRules.isString(), ValidationRules.minLength(1)]
+  },
+  claimId: {
+    required: false,
+    rules: [
+      ValidationRules.isString(),
+      ValidationRules.minLength(1),
+      ValidationRules.maxLength(64)
+    ]
+  }
+};
+
+/**
+ * Schema for a batch of chat messages, stored in order
+ */
+export const chatBatchSchema: ValidationSchema = {
+  messages: {
+    required: true,
+    rules: [
+      ValidationRules.isArray(),
+      ValidationRules.isNonEmptyArray(),
+      ValidationRules.custom((value) => value.length <= 100, 'Must contain at most 100 messages'),
+      ValidationRules.custom(
+        (value) =>
+          value.every(
+            (message: any) =>
+              typeof message?.username === 'string' &&
+              /^[a-zA-Z0-9_]{3,16}$/.test(message.username) &&
+              typeof message.content === 'string' &&
+              message.content.length > 0
+          ),
+        'Each message must have a valid username and content'
+      )
+    ]
+  },
   secret: {
     required: true,
     rules: [ValidationRules.isString(), ValidationRules.minLength(1)]
@@ -109,8 +109,12 @@ router.get(
     // Add client to the set
     clients.add(res);
 
+    // Comment frames keep proxies and clients from treating an idle stream as dead
+    const heartbeat = setInterval(() => res.write(': ping\n\n'), 15000);
+
     // Remove client on connection close
     req.on('close', () => {
+      clearInterval(heartbeat);
       clients.delete(res);
       console.log('Client disconnected');
     });
@@ -118,6 +122,7 @@ router.get(
     // Handle connection timeout
     req.on('error', (error) => {
       console.error('SSE error:', error);
+      clearInterval(heartbeat);
       clients.delete(res);
     });
   }
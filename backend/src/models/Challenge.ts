@@ -60,7 +60,13 @@ export const challengeSchema = new mongoose.Schema<DBChallenge>(
         viral_balance: Number,
         signature: String
       }
-    ]
+    ],
+    reward_claim: {
+      claim_id: String,
+      username: String,
+      transaction: String,
+      date: Date
+    }
   },
   { collection: 'challenges' }
 );
@@ -20,6 +20,8 @@ router.get('/get-challenge', async (req: Request, res: Response) => {
   try {
     const name = req.query.name;
     const initial = req.query.initial;
+    // order=desc returns chatHistory newest first, so pollers can stop at the first seen message
+    const newestFirst = req.query.order === 'desc';
     let message_price = Number(req.query.price);
     let prize = message_price * 100;
 
@@ -258,7 +260,8 @@ router.get('/get-challenge', async (req: Request, res: Response) => {
         usdPrize,
         expiry,
         solPrice,
-        chatHistory: chatHistory.reverse(),
+        ...(newestFirst && { chatHistoryOrder: 'desc' }),
+        chatHistory: newestFirst ? chatHistory : chatHistory.reverse(),
         latestScreenshot,
         stream_src: challenge.stream_src
       });
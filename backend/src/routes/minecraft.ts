@@ -1,4 +1,5 @@
 import express, { Request, Response } from 'express';
+import mongoose from 'mongoose';
 import nacl from 'tweetnacl';
 import dotenv from 'dotenv';
 import { Connection, PublicKey } from '@solana/web3.js';
@@ -43,6 +44,88 @@ router.get('/whitelist', async (req: Request, res: Response) => {
   }
 });
 
+router.get('/messages', async (req: Request, res: Response) => {
+  try {
+    const { name, after } = req.query;
+    const limit = Math.min(Math.max(Number(req.query.limit) || 100, 1), 500);
+
+    if (!name) {
+      res.status(400).json({ error: 'Missing challenge name' });
+      return;
+    }
+
+    if (after && !mongoose.isValidObjectId(after)) {
+      res.status(400).json({ error: 'Invalid message cursor' });
+      return;
+    }
+
+    const challenge = await ChallengeModel.findOne(
+      { name: { $regex: name, $options: 'i' } },
+      {
+        name: 1
+      }
+    ).lean();
+
+    if (!challenge) {
+      res.status(404).json({ error: 'Challenge not found' });
+      return;
+    }
+
+    // Only user messages newer than the cursor; without a cursor return the latest page
+    const query: { [key: string]: any } = { challenge: challenge.name, role: 'user' };
+    if (after) {
+      query._id = { $gt: new mongoose.Types.ObjectId(after as string) };
+    }
+
+    const messages = await DatabaseService.getFullChatHistory(
+      query,
+      { _id: 1, role: 1, content: 1, date: 1 },
+      { _id: after ? 1 : -1 },
+      limit
+    );
+
+    if (!messages) throw Error('Error getting chat history.');
+
+    res.json({ messages: after ? messages : messages.reverse() });
+  } catch (error) {
+    console.error('Error getting messages:', error);
+    res.status(500).json({ error: 'Internal server error' });
+  }
+});
+
+// New messages for several challenges in one request, for servers relaying more than one
+router.post('/messages/batch', async (req: Request, res: Response) => {
+  try {
+    const { feeds } = req.body;
+    const limit = Math.min(Math.max(Number(req.body.limit) || 100, 1), 500);
+
+    if (!Array.isArray(feeds) || feeds.length === 0 || feeds.length > 20) {
+      res.status(400).json({ error: 'feeds must list 1 to 20 challenges' });
+      return;
+    }
+
+    for (const feed of feeds) {
+      if (typeof feed?.name !== 'string' || !feed.name) {
+        res.status(400).json({ error: 'Missing challenge name' });
+        return;
+      }
+      if (feed.after && !mongoose.isValidObjectId(feed.after)) {
+        res.status(400).json({ error: 'Invalid message cursor' });
+        return;
+      }
+    }
+
+    const results = await DatabaseService.getChallengeFeeds(feeds, limit);
+
+    if (!results) throw Error('Error getting chat history.');
+
+    res.json({ feeds: results });
+  } catch (error) {
+    console.error('Error getting messages:', error);
+    res.status(500).json({ error: 'Internal server error' });
+  }
+});
+
 router.post('/reveal', async (req: Request, res: Response) => {
   try {
     const { address, username, signature, challengeName } = req.body;
@@ -183,7 +266,7 @@ router.post('/reveal', async (req: Request, res: Response) => {
 
 router.post('/reward', async (req, res) => {
   try {
-    const { username, secret } = req.body;
+    const { username, secret, claimId } = req.body;
 
     if (!username || !secret) {
       res.status(400).json({ error: 'Missing required fields' });
@@ -195,6 +278,23 @@ router.post('/reward', async (req, res) => {
       return;
     }
 
+    // A retried claim gets the original outcome instead of a second conclusion
+    if (claimId) {
+      const previous = await ChallengeModel.findOne(
+        { 'reward_claim.claim_id': claimId },
+        { reward_claim: 1 }
+      ).lean();
+
+      if (previous?.reward_claim?.transaction) {
+        res.json({ success: true, transaction: previous.reward_claim.transaction });
+        return;
+      }
+      if (previous) {
+        res.status(202).json({ success: false, pending: true });
+        return;
+      }
+    }
+
     // Find active tournament
     const challenge = await ChallengeModel.findOne({
       status: 'active',
@@ -224,11 +324,40 @@ router.post('/reward', async (req, res) => {
       return;
     }
 
-    // Conclude tournament on-chain with winner's address
+    // Reserve the reward so concurrent or repeated claims can't conclude the tournament twice
+    const reserved = await ChallengeModel.updateOne(
+      { _id: challenge._id, reward_claim: { $exists: false } },
+      { $set: { reward_claim: { claim_id: claimId, username, date: new Date() } } }
+    );
+
+    if (reserved.modifiedCount === 0) {
+      res.status(409).json({ error: 'Reward has already been claimed' });
+      return;
+    }
+
+    // Conclude tournament on-chain with winner's address; a throw counts as not concluded
     const blockchainService = new BlockchainService(solanaRpc, programId);
-    const concluded = await blockchainService.concludeTournament(
-      tournamentPDA,
-      winnerEntry.address // Using the address from whitelist instead of username
+    const concluded = await blockchainService
+      .concludeTournament(
+        tournamentPDA,
+        winnerEntry.address // Using the address from whitelist instead of username
+      )
+      .catch((error) => {
+        console.error('Error concluding tournament:', error);
+        return null;
+      });
+
+    if (!concluded) {
+      // Release the reservation so the claim can be retried
+      await ChallengeModel.updateOne({ _id: challenge._id }, { $unset: { reward_claim: 1 } });
+      res.status(500).json({ error: 'Failed to conclude tournament' });
+      return;
+    }
+
+    // Record the payout before anything else can fail, so a retried claim gets this transaction
+    await ChallengeModel.updateOne(
+      { _id: challenge._id },
+      { $set: { 'reward_claim.transaction': concluded } }
     );
 
     // Add victory message to chat
@@ -245,9 +374,7 @@ router.post('/reward', async (req, res) => {
     await DatabaseService.createChat(victoryMessage);
 
     // Update challenge status
-    await DatabaseService.updateChallenge(challenge._id!, {
-      status: 'concluded'
-    });
+    await DatabaseService.updateChallenge(challenge._id!, { status: 'concluded' });
 
     res.json({ success: true, transaction: concluded });
   } catch (error) {
@@ -306,4 +433,67 @@ router.post('/chat', async (req, res) => {
   }
 });
 
+// Batched form of /chat: { secret, messages: [{ username, content }] }, stored in order
+router.post('/chat/batch', async (req, res) => {
+  try {
+    const { messages, secret } = req.body;
+
+    if (!Array.isArray(messages) || messages.length === 0 || !secret) {
+      res.status(400).json({ error: 'Missing required fields' });
+      return;
+    }
+
+    if (messages.length > 100) {
+      res.status(400).json({ error: 'Too many messages (max 100)' });
+      return;
+    }
+
+    if (
+      messages.some(
+        (message) =>
+          !message || typeof message.username !== 'string' || typeof message.content !== 'string'
+      )
+    ) {
+      res.status(400).json({ error: 'Each message needs a username and content' });
+      return;
+    }
+
+    if (secret !== ipcSecret) {
+      res.status(401).json({ error: 'Invalid secret' });
+      return;
+    }
+
+    // Find active game challenge
+    const challenge = await ChallengeModel.findOne({
+      game: { $exists: true },
+      status: 'active'
+    });
+
+    if (!challenge) {
+      res.status(404).json({ error: 'No active game challenge found' });
+      return;
+    }
+
+    // Stored in batch order, one millisecond apart
+    const base = Date.now();
+    const saved = await DatabaseService.createChats(
+      messages.map((message: { username: string; content: string }, i: number) => ({
+        challenge: challenge.name!,
+        role: message.username === 'viral_steve' ? 'assistant' : 'player',
+        content: message.content,
+        address: message.username,
+        display_name: message.username,
+        date: new Date(base + i)
+      }))
+    );
+
+    if (!saved) throw Error('Error saving chat messages.');
+
+    res.json({ success: true, count: saved.length });
+  } catch (error) {
+    console.error('Error processing chat batch:', error);
+    res.status(500).json({ error: 'Internal server error' });
+  }
+});
+
 export { router as minecraftRoute };
@@ -11,7 +11,7 @@ import {
 } from '../../models/Models.ts';
 import { TrainingEventModel } from '../../models/TrainingEvent.ts';
 import dotenv from 'dotenv';
-import { InferSchemaType, QueryOptions, SortOrder, UpdateWriteOpResult } from 'mongoose';
+import { InferSchemaType, QueryOptions, SortOrder, Types, UpdateWriteOpResult } from 'mongoose';
 import { GymVpsModel, gymVPSSchema } from '../../models/GymVPS.ts';
 import {
   VPSRegion,
@@ -99,8 +99,22 @@ class DataBaseService extends EventEmitter {
   // Chat-related methods
   async createChat(chatData: DBChat): Promise<DBChat | false> {
     try {
-      this.emit('new-chat', chatData);
-      return await ChatModel.create(chatData);
+      const chat = await ChatModel.create(chatData);
+      // Emit after the insert so stream subscribers get the message _id
+      this.emit('new-chat', { ...chatData, _id: chat._id });
+      return chat;
+    } catch (error) {
+      console.error('Database Service Error:', error);
+      return false;
+    }
+  }
+
+  async createChats(chatData: DBChat[]): Promise<DBChat[] | false> {
+    try {
+      // ordered: stops at the first failure so the stored messages stay a prefix of the batch
+      const chats = await ChatModel.insertMany(chatData, { ordered: true });
+      chats.forEach((chat, i) => this.emit('new-chat', { ...chatData[i], _id: chat._id }));
+      return chats;
     } catch (error) {
       console.error('Database Service Error:', error);
       return false;
@@ -137,6 +151,46 @@ class DataBaseService extends EventEmitter {
     }
   }
 
+  // New user messages for several challenges in one call; names match exactly, ignoring case.
+  // Each feed gets up to `limit` messages after its cursor, or its latest page without one.
+  async getChallengeFeeds(
+    feeds: { name: string; after?: string }[],
+    limit: number
+  ): Promise<
+    { name: string; messages: InferSchemaType<typeof chatSchema>[]; error?: string }[] | false
+  > {
+    try {
+      const patterns = feeds.map(
+        (feed) => new RegExp(`^${feed.name.replace(/[.*+?^${}()|[\]\\]/g, '\\$&')}$`, 'i')
+      );
+      const challenges = await ChallengeModel.find({ name: { $in: patterns } }, { name: 1 }).lean();
+      const names = new Map(
+        challenges.map((challenge) => [challenge.name!.toLowerCase(), challenge.name!])
+      );
+
+      return await Promise.all(
+        feeds.map(async (feed) => {
+          const challengeName = names.get(feed.name.toLowerCase());
+          if (!challengeName) {
+            return { name: feed.name, messages: [], error: 'Challenge not found' };
+          }
+
+          const query: { [key: string]: any } = { challenge: challengeName, role: 'user' };
+          if (feed.after) {
+            query._id = { $gt: new Types.ObjectId(feed.after) };
+          }
+          const messages = await ChatModel.find(query, { _id: 1, role: 1, content: 1, date: 1 })
+            .sort({ _id: feed.after ? 1 : -1 })
+            .limit(limit);
+          return { name: feed.name, messages: feed.after ? messages : messages.reverse() };
+        })
+      );
+    } catch (error) {
+      console.error('Database Service Error:', error);
+      return false;
+    }
+  }
+
   async getChatCount(query: QueryOptions): Promise<number | false> {
     try {
       return await ChatModel.countDocuments(query);
@@ -62,6 +62,12 @@ export interface DBChallenge {
     viral_balance?: number;
     signature?: string;
   }>;
+  reward_claim?: {
+    claim_id?: string;
+    username?: string;
+    transaction?: string;
+    date?: Date;
+  };
 }
 
 export interface DBChat {
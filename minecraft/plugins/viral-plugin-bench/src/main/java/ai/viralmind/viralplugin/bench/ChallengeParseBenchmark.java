@@ -0,0 +1,126 @@
+package ai.viralmind.viralplugin.bench;
+
+import ai.viralmind.viralplugin.ChatHistoryReader;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Parsing a get-challenge response into (id, role, content) triples, as the full relay mode does:
+ * Gson's tree model over the whole body (the baseline), a streaming JsonReader that skips everything but the
+ * chat history fields, and the plugin's ChatHistoryReader on a newest-first body where all but
+ * the last 5 messages were already relayed (the steady state between polls).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChallengeParseBenchmark {
+    @Param({ "10", "100", "1000", "10000" })
+    public int historySize;
+
+    private final Gson gson = new Gson();
+    private String body;
+    private byte[] bytes;
+    private byte[] newestFirstBytes;
+    private Predicate<String> seen;
+
+    @Setup
+    public void setup() {
+        body = Fixtures.challengeResponse(historySize);
+        bytes = body.getBytes(StandardCharsets.UTF_8);
+        newestFirstBytes = Fixtures.challengeResponse(historySize, true).getBytes(StandardCharsets.UTF_8);
+        String newest = Fixtures.messageId(historySize - 5);
+        // Fixed-width hex ids, so string order is id order
+        seen = id -> id.compareTo(newest) <= 0;
+    }
+
+    // Baseline: the tree-model parse the plugin used before ChatHistoryReader, materializing the whole
+    // response and then walking chatHistory
+    @Benchmark
+    public void treeModel(Blackhole blackhole) {
+        JsonObject response = gson.fromJson(body, JsonObject.class);
+        JsonArray chatHistory = response.getAsJsonArray("chatHistory");
+        for (int i = 0; i < chatHistory.size(); i++) {
+            JsonObject message = chatHistory.get(i).getAsJsonObject();
+            blackhole.consume(message.get("_id").getAsString());
+            blackhole.consume(message.get("role").getAsString());
+            blackhole.consume(message.get("content").getAsString());
+        }
+    }
+
+    // Streaming over the raw bytes, as an HttpClient InputStream body would be read
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws IOException {
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("chatHistory")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readMessage(reader, blackhole);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+    }
+
+    // Stops at the first already-relayed message and never reads the rest of the body
+    @Benchmark
+    public List<ChatHistoryReader.Message> chatHistoryReaderNewestFirst() throws IOException {
+        return ChatHistoryReader.read(new ByteArrayInputStream(newestFirstBytes), "chatHistory", seen);
+    }
+
+    private static void readMessage(JsonReader reader, Blackhole blackhole) throws IOException {
+        String id = null;
+        String role = null;
+        String content = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "_id" -> id = reader.nextString();
+                case "role" -> role = reader.nextString();
+                case "content" -> content = reader.nextString();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        blackhole.consume(id);
+        blackhole.consume(role);
+        blackhole.consume(content);
+    }
+}
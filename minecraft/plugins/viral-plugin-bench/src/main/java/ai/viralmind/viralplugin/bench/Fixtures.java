@@ -0,0 +1,95 @@
+package ai.viralmind.viralplugin.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Random;
+
+/**
+ * Synthetic API responses shaped like the real ones, generated with a fixed seed so runs are comparable.
+ */
+public final class Fixtures {
+    private static final Gson GSON = new Gson();
+
+    private Fixtures() {
+    }
+
+    // 24-character hex id, increasing with n like a Mongo ObjectId
+    public static String messageId(long n) {
+        return String.format("%024x", n);
+    }
+
+    // get-challenge response: challenge fields plus chatHistory (ascending), a third of it non-user messages
+    public static String challengeResponse(int historySize) {
+        return challengeResponse(historySize, false);
+    }
+
+    // Same, optionally newest first as returned for order=desc
+    public static String challengeResponse(int historySize, boolean newestFirst) {
+        Random random = new Random(42);
+        JsonObject challenge = new JsonObject();
+        challenge.addProperty("name", "viral_lua");
+        challenge.addProperty("title", "Viral Lua");
+        challenge.addProperty("status", "active");
+        challenge.addProperty("prize", 1234.5);
+        challenge.addProperty("usdPrize", 1234.5);
+        challenge.addProperty("break_attempts", historySize);
+
+        JsonArray chatHistory = new JsonArray();
+        for (int i = 0; i < historySize; i++) {
+            JsonObject message = new JsonObject();
+            message.addProperty("_id", messageId(newestFirst ? historySize - i : i + 1));
+            message.addProperty("challenge", "viral_lua");
+            message.addProperty("role", i % 3 == 2 ? "assistant" : "user");
+            message.addProperty("content", sentence(random, 8 + random.nextInt(40)));
+            message.addProperty("address", "Addr" + Long.toHexString(random.nextLong()));
+            message.addProperty("display_name", "player_" + random.nextInt(500));
+            message.addProperty("date", "2024-12-21T15:48:53.195Z");
+            chatHistory.add(message);
+        }
+
+        JsonObject response = new JsonObject();
+        response.add("challenge", challenge);
+        if (newestFirst) {
+            response.addProperty("chatHistoryOrder", "desc");
+        }
+        response.add("chatHistory", chatHistory);
+        response.addProperty("break_attempts", historySize);
+        response.addProperty("message_price", 10);
+        response.addProperty("prize", 1234.5);
+        return GSON.toJson(response);
+    }
+
+    // minecraft/whitelist response with the given number of entries; usernames are player_0..player_{n-1}
+    public static String whitelistResponse(int entries) {
+        Random random = new Random(7);
+        JsonArray whitelist = new JsonArray();
+        for (int i = 0; i < entries; i++) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("username", "player_" + i);
+            entry.addProperty("address", "Addr" + Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()));
+            entry.addProperty("viral_balance", random.nextInt(3_000_000));
+            entry.addProperty("signature", Long.toHexString(random.nextLong()));
+            entry.addProperty("_id", messageId(i + 1));
+            whitelist.add(entry);
+        }
+
+        JsonObject response = new JsonObject();
+        response.add("whitelist", whitelist);
+        return GSON.toJson(response);
+    }
+
+    private static String sentence(Random random, int words) {
+        String[] vocabulary = { "diamond", "creeper", "\"quoted\"", "prize", "gold", "the", "a", "run", "🔥", "lava",
+                "nether", "back\\slash", "steve", "block", "craft" };
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package ai.viralmind.viralplugin.bench;
+
+import ai.viralmind.viralplugin.PrizeGold;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per right-click cost of recognizing Prize Gold: the original meta-first check against
+ * PrizeGold's type-first check, for an enchanted sword (meta, wrong type), a stack of stone
+ * (no meta), a plain gold ingot and Prize Gold itself. There is no server here, so items are
+ * stand-ins whose getItemMeta() copies the meta's fields on every call like CraftItemStack
+ * does; run with {@code -prof gc} to see the allocation per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrizeGoldBenchmark {
+    @Param({ "sword", "stone", "gold", "prize" })
+    public String item;
+
+    private NamespacedKey key;
+    private PrizeGold prizeGold;
+    private ItemStack stack;
+
+    @Setup
+    public void setup() {
+        key = NamespacedKey.fromString("viralplugin:prize_gold");
+        prizeGold = new PrizeGold(key);
+
+        Map<String, Object> sword = new HashMap<>();
+        sword.put("display-name", "Excalibur");
+        sword.put("enchants", Map.of("sharpness", 5, "unbreaking", 3));
+        sword.put("lore", "§7Forged in the nether");
+
+        Map<String, Object> prize = new HashMap<>();
+        prize.put("display-name", "§6Prize Gold");
+        prize.put("lore", "§eRight click me to claim the prize!");
+        prize.put(key.toString(), (byte) 1);
+
+        stack = switch (item) {
+            case "sword" -> new StubItem(Material.DIAMOND_SWORD, sword);
+            case "stone" -> new StubItem(Material.STONE, null);
+            case "gold" -> new StubItem(Material.GOLD_INGOT, null);
+            default -> new StubItem(Material.GOLD_INGOT, prize);
+        };
+    }
+
+    // onPlayerInteract before: any item with meta got its meta copied and queried
+    @Benchmark
+    public boolean legacyMetaFirst() {
+        return stack != null && stack.hasItemMeta()
+                && stack.getItemMeta().getPersistentDataContainer().has(key, PersistentDataType.BYTE);
+    }
+
+    @Benchmark
+    public boolean typeFirst() {
+        return prizeGold.matches(stack);
+    }
+
+    // An item whose getItemMeta() returns a fresh copy each call, like CraftItemStack
+    private static final class StubItem extends ItemStack {
+        private final Material type;
+        private final Map<String, Object> meta;
+
+        StubItem(Material type, Map<String, Object> meta) {
+            super(type, 1);
+            this.type = type;
+            this.meta = meta;
+        }
+
+        @Override
+        public Material getType() {
+            return type;
+        }
+
+        @Override
+        public boolean hasItemMeta() {
+            return meta != null;
+        }
+
+        @Override
+        public ItemMeta getItemMeta() {
+            Map<String, Object> copy = new HashMap<>(meta != null ? meta : Map.of());
+            PersistentDataContainer container = (PersistentDataContainer) Proxy.newProxyInstance(
+                    PersistentDataContainer.class.getClassLoader(), new Class<?>[] { PersistentDataContainer.class },
+                    (proxy, method, args) -> method.getName().equals("has")
+                            ? copy.containsKey(args[0].toString()) : null);
+            return (ItemMeta) Proxy.newProxyInstance(ItemMeta.class.getClassLoader(),
+                    new Class<?>[] { ItemMeta.class },
+                    (proxy, method, args) -> method.getName().equals("getPersistentDataContainer") ? container : null);
+        }
+    }
+}
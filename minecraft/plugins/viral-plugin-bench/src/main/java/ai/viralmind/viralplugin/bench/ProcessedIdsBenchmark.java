@@ -0,0 +1,107 @@
+package ai.viralmind.viralplugin.bench;
+
+import ai.viralmind.viralplugin.ProcessedIdStore;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Dedup check and persistence per relayed message: the original HashSet rewritten to
+ * processed_ids.json on every new message, versus ProcessedIdStore's append-only log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessedIdsBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    private final Gson gson = new Gson();
+    private Path dir;
+    private File legacyFile;
+    private Set<String> legacyIds;
+    private ProcessedIdStore store;
+    private List<String> present;
+    private long nextId;
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("viral-bench");
+        legacyFile = dir.resolve("processed_ids.json").toFile();
+
+        present = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            present.add(Fixtures.messageId(i + 1));
+        }
+        nextId = size + 1;
+
+        legacyIds = new HashSet<>(present);
+        store = new ProcessedIdStore(dir.resolve("processed_ids.log").toFile(), size);
+        store.open();
+        store.importAll(present);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private String nextPresent() {
+        cursor = (cursor + 1) % present.size();
+        return present.get(cursor);
+    }
+
+    @Benchmark
+    public boolean legacyContains() {
+        return legacyIds.contains(nextPresent());
+    }
+
+    @Benchmark
+    public boolean storeContains() {
+        return store.contains(nextPresent());
+    }
+
+    // Add one ID and rewrite the whole set, as saveProcessedIds() did; the ID is removed again to keep the size fixed
+    @Benchmark
+    public void legacyRecord() throws IOException {
+        String id = Fixtures.messageId(nextId++);
+        legacyIds.add(id);
+        Files.write(legacyFile.toPath(), gson.toJson(legacyIds).getBytes());
+        legacyIds.remove(id);
+    }
+
+    // Append one ID; includes the amortized batched fsync and compaction
+    @Benchmark
+    public boolean storeRecord() throws IOException {
+        return store.add(Fixtures.messageId(nextId++));
+    }
+}
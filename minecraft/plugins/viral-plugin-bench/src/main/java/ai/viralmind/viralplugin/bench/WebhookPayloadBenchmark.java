@@ -0,0 +1,81 @@
+package ai.viralmind.viralplugin.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a Discord webhook body for a batch of chat lines: the original String.format
+ * template (which doesn't escape newlines or backslashes, so multi-line batches produce
+ * invalid JSON), WebhookDispatcher's Gson tree, and a streaming JsonWriter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebhookPayloadBenchmark {
+    @Param({ "1", "10", "40" })
+    public int lines;
+
+    private final Gson gson = new Gson();
+    private String content;
+
+    @Setup
+    public void setup() {
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                batch.append('\n');
+            }
+            batch.append("💬 **Chat**: player_").append(i).append(": did you see the \"prize\" gold? C:\\loot");
+        }
+        content = batch.toString();
+    }
+
+    @Benchmark
+    public String legacyFormat() {
+        return String.format("""
+                {
+                    "content": "%s",
+                    "username": "%s"
+                }
+                """, content.replace("\"", "\\\""), "Chat Logger");
+    }
+
+    @Benchmark
+    public String gsonTree() {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("content", content);
+        payload.addProperty("username", "Chat Logger");
+        return gson.toJson(payload);
+    }
+
+    @Benchmark
+    public String jsonWriter() throws IOException {
+        StringWriter out = new StringWriter(content.length() + 64);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name("content").value(content);
+            writer.name("username").value("Chat Logger");
+            writer.endObject();
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package ai.viralmind.viralplugin.bench;
+
+import ai.viralmind.viralplugin.WhitelistIndex;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance check on join: the original fetch-parse-scan of the whole whitelist per join,
+ * a scan of an already parsed array, and WhitelistIndex's parse (paid once per refresh)
+ * and map lookup (paid per join). The player looked up sits in the middle of the list
+ * and is typed in a different case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhitelistBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int entries;
+
+    private final Gson gson = new Gson();
+    private String body;
+    private JsonArray parsed;
+    private Map<String, WhitelistIndex.Entry> index;
+    private String target;
+
+    @Setup
+    public void setup() {
+        body = Fixtures.whitelistResponse(entries);
+        parsed = gson.fromJson(body, JsonObject.class).getAsJsonArray("whitelist");
+        index = WhitelistIndex.parse(gson, body);
+        target = ("player_" + entries / 2).toUpperCase(Locale.ROOT);
+    }
+
+    // Per join before the index: parse the response and scan it
+    @Benchmark
+    public double legacyParseAndScan() {
+        return scan(gson.fromJson(body, JsonObject.class).getAsJsonArray("whitelist"));
+    }
+
+    @Benchmark
+    public double parsedScan() {
+        return scan(parsed);
+    }
+
+    // Per refresh with the index
+    @Benchmark
+    public Map<String, WhitelistIndex.Entry> indexParse() {
+        return WhitelistIndex.parse(gson, body);
+    }
+
+    // Per join with the index
+    @Benchmark
+    public double indexLookup() {
+        WhitelistIndex.Entry entry = index.get(target.toLowerCase(Locale.ROOT));
+        return entry != null ? entry.balance() : 0;
+    }
+
+    private double scan(JsonArray whitelist) {
+        for (int i = 0; i < whitelist.size(); i++) {
+            JsonObject entry = whitelist.get(i).getAsJsonObject();
+            if (entry.get("username").getAsString().equalsIgnoreCase(target)) {
+                return entry.get("viral_balance").getAsDouble();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,113 @@
+package ai.viralmind.viralplugin;
+
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Main-thread delivery queue for relayed chat.
+ * Lines are formatted by the caller off the main thread and queued here; {@link #drain()}
+ * runs once per tick and sends them in chunks, one {@code sendMessage(String...)} per player
+ * per chunk, until the tick's time budget is spent. Whatever is left waits for the next tick.
+ * When the backlog exceeds its capacity the oldest lines are dropped. A line can be limited
+ * to an audience (a world or permission); each player then only gets the lines meant for them.
+ */
+public class BroadcastQueue {
+    private record Line(String text, Predicate<Player> audience) {
+    }
+
+    private static final int CHUNK = 10;
+
+    private final Server server;
+    private final long budgetNanos;
+    private final int capacity;
+    private final Queue<Line> lines = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public BroadcastQueue(Server server, long budgetNanos, int capacity) {
+        this.server = server;
+        this.budgetNanos = budgetNanos;
+        this.capacity = capacity;
+    }
+
+    // Queues a formatted line for every player; safe to call from any thread
+    public void offer(String line) {
+        offer(line, null);
+    }
+
+    // Queues a formatted line for the players the audience accepts (null means everyone)
+    public void offer(String line, Predicate<Player> audience) {
+        lines.add(new Line(line, audience));
+        if (size.incrementAndGet() > capacity && lines.poll() != null) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+    }
+
+    public int pending() {
+        return size.get();
+    }
+
+    public long delivered() {
+        return delivered.get();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    // Main thread only: sends queued lines until the budget is spent (at least one chunk per tick)
+    public void drain() {
+        if (size.get() == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Collection<? extends Player> players = server.getOnlinePlayers();
+        do {
+            Line[] chunk = new Line[CHUNK];
+            int count = 0;
+            boolean everyone = true;
+            Line line;
+            while (count < CHUNK && (line = lines.poll()) != null) {
+                chunk[count++] = line;
+                everyone &= line.audience() == null;
+            }
+            if (count == 0) {
+                return;
+            }
+            size.addAndGet(-count);
+            delivered.addAndGet(count);
+
+            String[] batch = everyone ? texts(chunk, count, null) : null;
+            for (Player player : players) {
+                String[] visible = everyone ? batch : texts(chunk, count, player);
+                if (visible.length > 0) {
+                    player.sendMessage(visible);
+                }
+            }
+        } while (System.nanoTime() - start < budgetNanos);
+    }
+
+    // The chunk's lines meant for a player, or all of them when player is null
+    private static String[] texts(Line[] chunk, int count, Player player) {
+        String[] texts = new String[count];
+        int visible = 0;
+        for (int i = 0; i < count; i++) {
+            Predicate<Player> audience = chunk[i].audience();
+            if (player == null || audience == null || audience.test(player)) {
+                texts[visible++] = chunk[i].text();
+            }
+        }
+        return visible == count ? texts : Arrays.copyOf(texts, visible);
+    }
+}
@@ -0,0 +1,178 @@
+package ai.viralmind.viralplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Server-sent-events subscription to /api/streams/challenge-chat.
+ * Runs on its own daemon thread and reconnects with jittered exponential backoff;
+ * callers poll instead whenever {@link #isLive()} returns false.
+ */
+public class ChallengeChatStream {
+    private static final long MIN_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60000;
+    // The backend sends a heartbeat every 15s, so three missed ones means the connection is dead
+    private static final long STALE_MS = 45000;
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final Gson gson;
+    private final Logger logger;
+    private final Consumer<JsonObject> onMessage;
+    private final Runnable onConnect;
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile long lastActivity;
+    private volatile InputStream body;
+    private Thread thread;
+
+    public ChallengeChatStream(HttpClient httpClient, URI uri, Gson gson, Logger logger,
+            Consumer<JsonObject> onMessage, Runnable onConnect) {
+        this.httpClient = httpClient;
+        this.uri = uri;
+        this.gson = gson;
+        this.logger = logger;
+        this.onMessage = onMessage;
+        this.onConnect = onConnect;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "ViralPlugin-ChatStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        closeBody();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // True while the stream is connected and has shown activity recently. A stale
+    // connection is closed here so the stream thread reconnects.
+    public boolean isLive() {
+        if (!connected) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastActivity > STALE_MS) {
+            logger.warning("Chat stream went silent, reconnecting");
+            connected = false;
+            closeBody();
+            return false;
+        }
+        return true;
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MS;
+        while (running) {
+            try {
+                if (consume()) {
+                    backoff = MIN_BACKOFF_MS;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                if (running) {
+                    logger.warning("Chat stream error: " + e.getMessage());
+                }
+            }
+            connected = false;
+            closeBody();
+
+            if (!running) {
+                break;
+            }
+
+            long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+            logger.info("Chat stream down, falling back to polling for " + delay + "ms");
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                break;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+        connected = false;
+    }
+
+    // Reads events until the connection ends. Returns true if it was established first.
+    private boolean consume() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        body = response.body();
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode());
+        }
+
+        lastActivity = System.currentTimeMillis();
+        connected = true;
+        logger.info("Chat stream connected");
+        onConnect.run();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                lastActivity = System.currentTimeMillis();
+
+                if (line.isEmpty()) {
+                    // A blank line terminates the event
+                    if (data.length() > 0) {
+                        dispatch(data.toString());
+                        data.setLength(0);
+                    }
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(line.startsWith("data: ") ? line.substring(6) : line.substring(5));
+                }
+                // Comments (heartbeats) and other fields are ignored
+            }
+        }
+        return true;
+    }
+
+    private void dispatch(String data) {
+        try {
+            JsonObject event = gson.fromJson(data, JsonObject.class);
+            if (event != null && event.has("type") && "message".equals(event.get("type").getAsString())) {
+                onMessage.accept(event.getAsJsonObject("message"));
+            }
+        } catch (Exception e) {
+            logger.warning("Failed to handle chat stream event: " + e.getMessage());
+        }
+    }
+
+    private void closeBody() {
+        InputStream current = body;
+        body = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ai.viralmind.viralplugin;
+
+import org.bukkit.entity.Player;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * One relayed challenge: its dedup store, incremental relay cursor and in-game audience.
+ * Parsed from CHALLENGES entries of the form {@code name}, {@code name@world:<world>} or
+ * {@code name@perm:<permission>}; without a target the chat goes to every player.
+ */
+public class ChallengeFeed {
+    private final String name;
+    private final Predicate<Player> audience; // null means every player
+    private final ProcessedIdStore processedIds;
+    private volatile String cursor; // _id of the newest message seen by the incremental relay
+
+    public ChallengeFeed(String name, Predicate<Player> audience, ProcessedIdStore processedIds) {
+        this.name = name;
+        this.audience = audience;
+        this.processedIds = processedIds;
+    }
+
+    // Parses one CHALLENGES entry; stores creates the dedup store for a challenge name
+    public static ChallengeFeed parse(String entry, Function<String, ProcessedIdStore> stores) {
+        int at = entry.indexOf('@');
+        String name = (at < 0 ? entry : entry.substring(0, at)).trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Missing challenge name in '" + entry + "'");
+        }
+
+        Predicate<Player> audience = null;
+        if (at >= 0) {
+            String target = entry.substring(at + 1).trim();
+            if (target.startsWith("world:")) {
+                String world = target.substring("world:".length());
+                audience = player -> player.getWorld().getName().equalsIgnoreCase(world);
+            } else if (target.startsWith("perm:")) {
+                String permission = target.substring("perm:".length());
+                audience = player -> player.hasPermission(permission);
+            } else {
+                throw new IllegalArgumentException("Unknown broadcast target '" + target + "' for " + name);
+            }
+        }
+        return new ChallengeFeed(name, audience, stores.apply(name));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Predicate<Player> audience() {
+        return audience;
+    }
+
+    public ProcessedIdStore processedIds() {
+        return processedIds;
+    }
+
+    public String cursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+}
@@ -0,0 +1,238 @@
+package ai.viralmind.viralplugin;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Forwards in-game chat to the backend's /chat/batch endpoint.
+ * Messages are queued (bounded, dropping when full) and sent by a single thread once
+ * the first one has waited {@code lingerMs} or {@code maxBatch} are queued. Only one
+ * batch is in flight at a time and a failed batch is retried before anything behind it,
+ * so messages reach the backend in the order players sent them.
+ */
+public class ChatForwarder {
+    // /chat/batch refuses anything larger with a 400
+    public static final int MAX_BATCH = 100;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 1000;
+    private static final long SHUTDOWN_WAIT_MS = 2000;
+
+    private record Message(String username, String content) {
+    }
+
+    private final HttpTransport transport;
+    private final URI uri;
+    private final String secret;
+    private final Logger logger;
+    private final Consumer<String> onError;
+    private final int maxBatch;
+    private final long lingerMs;
+    private final BlockingQueue<Message> queue;
+    private final ScheduledThreadPoolExecutor executor;
+    private final LatencyHistogram latency;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean flushNow = new AtomicBoolean();
+
+    // Only touched from the executor thread
+    private final List<Message> batch = new ArrayList<>();
+    private int attempts;
+    private long retryAt;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public ChatForwarder(HttpTransport transport, String url, String secret, Logger logger, Consumer<String> onError,
+            int capacity, int maxBatch, long lingerMs, LatencyHistogram latency) {
+        this.transport = transport;
+        this.uri = URI.create(url);
+        this.secret = secret;
+        this.logger = logger;
+        this.onError = onError;
+        this.maxBatch = maxBatch;
+        this.lingerMs = lingerMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.latency = latency;
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "ViralPlugin-Chat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Linger and retry flushes still waiting at shutdown are covered by the final flush
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    // Queues a chat line without blocking; it is dropped and counted if the queue is full
+    public void enqueue(String username, String content) {
+        if (!queue.offer(new Message(username, content))) {
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            if (queue.size() >= maxBatch) {
+                if (flushNow.compareAndSet(false, true)) {
+                    executor.execute(this::flush);
+                }
+            } else if (flushScheduled.compareAndSet(false, true)) {
+                executor.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // Shutting down; shutdown() sends what is left
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public long sent() {
+        return sent.get();
+    }
+
+    public long batches() {
+        return batches.get();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    // Stops the sender after one last attempt, bounded by SHUTDOWN_WAIT_MS, to deliver what is queued.
+    // The attempt runs on the sender thread, which owns the batch, rather than the caller's.
+    public void shutdown() {
+        try {
+            executor.execute(() -> {
+                retryAt = 0;
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // Already shut down
+        }
+        executor.shutdown();
+        boolean stopped = false;
+        try {
+            stopped = executor.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!stopped) {
+            executor.shutdownNow(); // Abandons the batch in flight
+            logger.warning("Discarded " + queue.size() + " chat messages, and the batch in flight, on shutdown");
+            return;
+        }
+        int remaining = batch.size() + queue.size();
+        if (remaining > 0) {
+            logger.warning("Discarded " + remaining + " chat messages on shutdown");
+        }
+    }
+
+    // Sends queued messages in batches until the queue is empty or a batch fails
+    private void flush() {
+        flushScheduled.set(false);
+        flushNow.set(false);
+        // A failed batch holds everything behind it until its retry is due
+        if (!batch.isEmpty() && System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        try {
+            while (true) {
+                if (batch.isEmpty()) {
+                    queue.drainTo(batch, maxBatch);
+                    attempts = 0;
+                }
+                if (batch.isEmpty() || !send()) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.warning("Chat forwarder error: " + e.getMessage());
+        }
+    }
+
+    // Returns true once the batch is settled (sent or dropped), false if it should be retried later
+    private boolean send() {
+        String error;
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = transport.send(transport.postJson(uri, serialize()).build());
+            int status = response.statusCode();
+            latency.recordSince(start, status < 400);
+
+            if (status >= 200 && status < 300) {
+                sent.addAndGet(batch.size());
+                batches.incrementAndGet();
+                batch.clear();
+                return true;
+            }
+            if (status < 500 && status != 429) {
+                // Retrying won't change the answer
+                drop("status " + status + ": " + response.body());
+                return true;
+            }
+            error = "status " + status;
+        } catch (IOException e) {
+            latency.recordSince(start, false);
+            error = e.getMessage();
+        } catch (InterruptedException e) {
+            latency.recordSince(start, false);
+            Thread.currentThread().interrupt();
+            error = "interrupted";
+        }
+
+        if (++attempts >= MAX_ATTEMPTS) {
+            drop(error);
+            return true;
+        }
+        retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+        try {
+            executor.schedule(this::flush, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+        return false;
+    }
+
+    private void drop(String reason) {
+        String message = "Failed to send " + batch.size() + " chat messages to API: " + reason;
+        logger.warning(message);
+        onError.accept(message);
+        dropped.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    // {"secret": "...", "messages": [{"username": "...", "content": "..."}, ...]}
+    private byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + batch.size() * 96);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            writer.name("secret").value(secret);
+            writer.name("messages").beginArray();
+            for (Message message : batch) {
+                writer.beginObject();
+                writer.name("username").value(message.username());
+                writer.name("content").value(message.content());
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,143 @@
+package ai.viralmind.viralplugin;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Streaming reader for chat history responses (get-challenge's chatHistory, minecraft/messages).
+ * Only _id, role and content are kept; every other field is skipped without being materialized.
+ * When the response declares {@code "chatHistoryOrder": "desc"} ahead of the array, reading stops
+ * at the first message that was already processed and the rest of the body is never read.
+ * Batched polls (minecraft/messages/batch) carry one such array per challenge under "feeds".
+ */
+public final class ChatHistoryReader {
+    public record Message(String id, String role, String content) {
+    }
+
+    // One challenge's part of a batched poll; error is set when the backend couldn't serve it
+    public record Feed(String name, String error, List<Message> messages) {
+    }
+
+    private ChatHistoryReader() {
+    }
+
+    // Returns the unseen messages in the array field, oldest first. Closes the stream.
+    public static List<Message> read(InputStream body, String arrayField, Predicate<String> seen)
+            throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            boolean newestFirst = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("chatHistoryOrder") && reader.peek() == JsonToken.STRING) {
+                    newestFirst = reader.nextString().equals("desc");
+                } else if (name.equals(arrayField) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    // Nothing after the array is needed, so return without reading the rest
+                    return readArray(reader, seen, newestFirst);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    // Returns every feed of a batched poll response, messages oldest first. Closes the stream.
+    public static List<Feed> readFeeds(InputStream body) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<Feed> feeds = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("feeds") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        feeds.add(readFeed(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            return feeds;
+        }
+    }
+
+    private static Feed readFeed(JsonReader reader) throws IOException {
+        String name = null;
+        String error = null;
+        List<Message> messages = Collections.emptyList();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (field.equals("messages") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                // Cursors advance past duplicates too, so nothing is filtered here
+                messages = readArray(reader, id -> false, false);
+                reader.endArray();
+            } else if (field.equals("name") && reader.peek() == JsonToken.STRING) {
+                name = reader.nextString();
+            } else if (field.equals("error") && reader.peek() == JsonToken.STRING) {
+                error = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Feed(name != null ? name : "", error, messages);
+    }
+
+    private static List<Message> readArray(JsonReader reader, Predicate<String> seen, boolean newestFirst)
+            throws IOException {
+        List<Message> messages = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Message message = readMessage(reader);
+            if (message == null) {
+                continue;
+            }
+            if (seen.test(message.id())) {
+                if (newestFirst) {
+                    break; // Everything older has been processed too
+                }
+                continue;
+            }
+            messages.add(message);
+        }
+
+        if (newestFirst) {
+            Collections.reverse(messages);
+        }
+        return messages;
+    }
+
+    // Returns null for entries without an _id or role
+    private static Message readMessage(JsonReader reader) throws IOException {
+        String id = null;
+        String role = null;
+        String content = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() != JsonToken.STRING) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "_id" -> id = reader.nextString();
+                case "role" -> role = reader.nextString();
+                case "content" -> content = reader.nextString();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return id != null && role != null ? new Message(id, role, content != null ? content : "") : null;
+    }
+}
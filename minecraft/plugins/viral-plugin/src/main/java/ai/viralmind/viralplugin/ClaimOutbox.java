@@ -0,0 +1,247 @@
+package ai.viralmind.viralplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Durable outbox for Prize Gold reward claims.
+ * Each claim gets a random claim id and is appended to an fsync'd journal before its request
+ * is sent. It stays there until the backend gives a final answer: transient failures are retried
+ * with backoff, and claims left pending by a crash are sent again by replay(). The backend treats
+ * the claim id as an idempotency key, so a resent claim returns the original result instead of
+ * concluding the tournament twice.
+ */
+public class ClaimOutbox implements AutoCloseable {
+    public record Claim(String id, String username) {
+    }
+
+    // Completes a claim's future when the backend refuses the claim for good
+    public static class ClaimRejectedException extends Exception {
+        public ClaimRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    private static final long RETRY_BASE_MS = 1000;
+    private static final long RETRY_MAX_MS = 60000;
+
+    private final Path journalPath;
+    private final HttpTransport transport;
+    private final URI uri;
+    private final String secret;
+    private final Gson gson;
+    private final Logger logger;
+    private final LatencyHistogram latency;
+    private final BiConsumer<Claim, String> onClaimed;
+    private final ScheduledExecutorService executor;
+
+    // Guarded by this; the journal is only written from the executor thread
+    private final Map<String, Claim> pending = new LinkedHashMap<>();
+    private final Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+    private FileChannel journal;
+
+    public ClaimOutbox(File journalFile, HttpTransport transport, URI uri, String secret, Gson gson, Logger logger,
+            LatencyHistogram latency, BiConsumer<Claim, String> onClaimed) {
+        this.journalPath = journalFile.toPath();
+        this.transport = transport;
+        this.uri = uri;
+        this.secret = secret;
+        this.gson = gson;
+        this.logger = logger;
+        this.latency = latency;
+        this.onClaimed = onClaimed;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ViralPlugin-Claims");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Loads the claims still pending from the journal, which is rewritten to hold only those
+    public synchronized void open() throws IOException {
+        Files.createDirectories(journalPath.getParent());
+        if (Files.exists(journalPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields[0].equals("P") && fields.length == 3) {
+                        pending.put(fields[1], new Claim(fields[1], fields[2]));
+                    } else if (fields.length >= 2) {
+                        pending.remove(fields[1]); // D(one) or R(ejected)
+                    }
+                }
+            }
+        }
+
+        Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Claim claim : pending.values()) {
+                out.write(ByteBuffer.wrap(("P\t" + claim.id() + "\t" + claim.username() + "\n")
+                        .getBytes(StandardCharsets.UTF_8)));
+            }
+            out.force(true);
+        }
+        Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Sends every claim a previous run left pending; returns how many there were
+    public synchronized int replay() {
+        for (Claim claim : pending.values()) {
+            results.put(claim.id(), new CompletableFuture<>());
+            executor.execute(() -> send(claim, 0));
+        }
+        return pending.size();
+    }
+
+    // Journals and sends a claim; completes with the transaction once the backend accepts it
+    public synchronized CompletableFuture<String> submit(String username) {
+        Claim claim = new Claim(UUID.randomUUID().toString(), username);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        pending.put(claim.id(), claim);
+        results.put(claim.id(), result);
+
+        executor.execute(() -> {
+            try {
+                append("P\t" + claim.id() + "\t" + claim.username());
+            } catch (IOException e) {
+                // Not durable, so not sent either; the player can simply try again
+                forget(claim);
+                result.completeExceptionally(e);
+                return;
+            }
+            send(claim, 0);
+        });
+        return result;
+    }
+
+    // Whether a claim for this player is still waiting on the backend
+    public synchronized boolean hasPending(String username) {
+        return pending.values().stream().anyMatch(claim -> claim.username().equalsIgnoreCase(username));
+    }
+
+    public synchronized int pending() {
+        return pending.size();
+    }
+
+    // Pending claims stay in the journal and are replayed on the next start
+    @Override
+    public synchronized void close() throws IOException {
+        executor.shutdownNow();
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private void send(Claim claim, int attempt) {
+        JsonObject body = new JsonObject();
+        body.addProperty("username", claim.username());
+        body.addProperty("secret", secret);
+        body.addProperty("claimId", claim.id());
+
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = transport.send(transport.postJson(uri, body).build());
+        } catch (IOException e) {
+            latency.recordSince(start, false);
+            retry(claim, attempt, e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Shutting down; the claim stays in the journal
+            return;
+        }
+
+        int status = response.statusCode();
+        latency.recordSince(start, status < 400);
+        if (status == 200) {
+            finish(claim, "D", field(response.body(), "transaction"), null);
+        } else if (status == 202) {
+            retry(claim, attempt, "claim is still being processed"); // An earlier send is concluding it
+        } else if (status >= 400 && status < 500 && status != 408 && status != 429) {
+            String error = field(response.body(), "error");
+            finish(claim, "R", null, new ClaimRejectedException(error != null ? error : "status " + status));
+        } else {
+            retry(claim, attempt, "status " + status);
+        }
+    }
+
+    private void retry(Claim claim, int attempt, String reason) {
+        long delayMs = Math.min(RETRY_BASE_MS << Math.min(attempt, 16), RETRY_MAX_MS);
+        if (attempt == 0 || delayMs == RETRY_MAX_MS) {
+            logger.warning("Reward claim for " + claim.username() + " failed (" + reason + "), retrying in "
+                    + delayMs + "ms");
+        }
+        executor.schedule(() -> send(claim, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void finish(Claim claim, String outcome, String transaction, Exception error) {
+        try {
+            append(outcome + "\t" + claim.id());
+        } catch (IOException e) {
+            // Replaying it later is harmless: the backend answers with the same outcome
+            logger.warning("Failed to journal reward claim outcome: " + e.getMessage());
+        }
+
+        CompletableFuture<String> result = forget(claim);
+        if (error != null) {
+            logger.warning("Reward claim for " + claim.username() + " was rejected: " + error.getMessage());
+            result.completeExceptionally(error);
+            return;
+        }
+        onClaimed.accept(claim, transaction);
+        result.complete(transaction);
+    }
+
+    private synchronized CompletableFuture<String> forget(Claim claim) {
+        pending.remove(claim.id());
+        return results.remove(claim.id());
+    }
+
+    private synchronized void append(String line) throws IOException {
+        if (journal == null) {
+            throw new IOException("Claim journal is closed");
+        }
+        journal.write(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+        journal.force(true);
+    }
+
+    // Reads a top-level string field (or the same field under "data") from a response body
+    private String field(String body, String name) {
+        try {
+            JsonObject json = gson.fromJson(body, JsonObject.class);
+            JsonObject data = json.has("data") && json.get("data").isJsonObject() ? json.getAsJsonObject("data")
+                    : json;
+            JsonElement value = data.get(name);
+            return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package ai.viralmind.viralplugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Local, append-only record of what the plugin handled: joins, refusals, kicks, VIP grants,
+ * chat, claims and errors. Events are queued without blocking (dropped and counted when full)
+ * and written by one thread into fixed-size memory-mapped segment files (events-NNNNNNNN.seg),
+ * rolling to a new segment when one fills up and deleting the oldest beyond {@code maxSegments}.
+ * Each record is {@code [int length][int crc32][type][time][amount][player][detail]}; a zero
+ * length marks the end of a segment's data, and a bad checksum a record torn by a crash.
+ * read() walks the segments offline; JournalExport turns them into JSON lines.
+ */
+public class EventJournal implements AutoCloseable {
+    public enum Type {
+        JOIN(1), REFUSED(2), KICK(3), VERIFY_FAILED(4), VIP(5), CLAIM(6), CLAIM_CONFIRMED(7), CLAIM_REJECTED(8),
+        CHAT(9), API_ERROR(10);
+
+        // Stored in the journal, so codes are never reused or renumbered
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        static Type of(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        public String id() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // player and detail may be null; amount is 0 when the event has none
+    public record Event(long time, Type type, String player, double amount, String detail) {
+    }
+
+    private static final int HEADER_BYTES = 8; // length + crc
+    private static final int MAX_FIELD_CHARS = 4096;
+    private static final int NULL_FIELD = 0xFFFF;
+    private static final long FORCE_INTERVAL_MS = 1000;
+    // Large enough for any single record, however small the configured segments are
+    private static final int MIN_SEGMENT_BYTES = 64 * 1024;
+    // Wakes the writer on close; an interrupt would close the mapped file channel under it
+    private static final Event STOP = new Event(0, null, null, 0, null);
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Logger logger;
+    private final BlockingQueue<Event> queue;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running;
+
+    // Only touched from the writer thread once open() returns
+    private final ByteBuffer scratch;
+    private final CRC32 crc = new CRC32();
+    private long segment;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private boolean dirty;
+    private long lastForce;
+
+    public EventJournal(File dir, int segmentBytes, int maxSegments, int capacity, Logger logger) {
+        // roll() keeps the newest maxSegments, which must include the one it just mapped
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("maxSegments must be at least 1, got " + maxSegments);
+        }
+        if (segmentBytes < 1) {
+            throw new IllegalArgumentException("segmentBytes must be positive, got " + segmentBytes);
+        }
+        this.dir = dir.toPath();
+        this.segmentBytes = Math.max(segmentBytes, MIN_SEGMENT_BYTES);
+        this.maxSegments = maxSegments;
+        this.logger = logger;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.scratch = ByteBuffer.allocate(64 + 2 * 3 * MAX_FIELD_CHARS);
+        this.writer = new Thread(this::run, "ViralPlugin-Journal");
+        this.writer.setDaemon(true);
+    }
+
+    // Maps the newest segment, continuing after its last intact record, and starts the writer
+    public void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> segments = segments(dir);
+        if (segments.isEmpty()) {
+            map(1);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            map(sequence(last));
+            mapped.position(scan(mapped, null));
+        }
+        lastForce = System.currentTimeMillis();
+        running = true;
+        writer.start();
+    }
+
+    // Queues an event without blocking; it is dropped and counted if the queue is full
+    public void append(Type type, String player, double amount, String detail) {
+        if (!running || !queue.offer(new Event(System.currentTimeMillis(), type, player, amount, detail))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long written() {
+        return written.get();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    // Writes what is still queued, then syncs and closes the current segment
+    @Override
+    public void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        queue.offer(STOP); // If the queue is full, the writer is busy draining it anyway
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Calls the consumer with every intact event in the directory, oldest first
+    public static void read(Path dir, Consumer<Event> consumer) throws IOException {
+        for (Path path : segments(dir)) {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+                scan(file.map(FileChannel.MapMode.READ_ONLY, 0, file.size()), consumer);
+            }
+        }
+    }
+
+    private void run() {
+        List<Event> batch = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                Event first;
+                try {
+                    first = queue.poll(FORCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    for (Event event : batch) {
+                        if (event != STOP) {
+                            write(event);
+                        }
+                    }
+                    batch.clear();
+                }
+                if (dirty && System.currentTimeMillis() - lastForce >= FORCE_INTERVAL_MS) {
+                    force();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Event journal stopped: " + e);
+            running = false;
+        } finally {
+            try {
+                force();
+                channel.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close the event journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private void write(Event event) throws IOException {
+        scratch.clear();
+        scratch.put(event.type().code);
+        scratch.putLong(event.time());
+        scratch.putDouble(event.amount());
+        putString(scratch, event.player());
+        putString(scratch, event.detail());
+        scratch.flip();
+
+        crc.reset();
+        crc.update(scratch.duplicate());
+        int length = scratch.remaining();
+        if (mapped.remaining() < HEADER_BYTES + length) {
+            roll();
+        }
+
+        // The length goes in last, so a record is only visible once it is complete
+        int start = mapped.position();
+        mapped.position(start + 4);
+        mapped.putInt((int) crc.getValue());
+        mapped.put(scratch);
+        mapped.putInt(start, length);
+        dirty = true;
+        written.incrementAndGet();
+    }
+
+    private void roll() throws IOException {
+        force();
+        channel.close();
+        map(segment + 1);
+
+        List<Path> segments = segments(dir);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private void map(long sequence) throws IOException {
+        segment = sequence;
+        channel = FileChannel.open(dir.resolve(String.format("events-%08d.seg", sequence)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // A new file is extended with zeros, which read as "no more records"
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentBytes, channel.size()));
+    }
+
+    private void force() {
+        if (dirty) {
+            mapped.force();
+            dirty = false;
+        }
+        lastForce = System.currentTimeMillis();
+    }
+
+    // Reads records from the start of a segment; returns the offset just past the last intact one
+    private static int scan(ByteBuffer buffer, Consumer<Event> consumer) {
+        CRC32 checksum = new CRC32();
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.limit() - position - HEADER_BYTES) {
+                break;
+            }
+            int body = position + HEADER_BYTES;
+            ByteBuffer record = buffer.duplicate().limit(body + length).position(body);
+            checksum.reset();
+            checksum.update(record.duplicate());
+            if ((int) checksum.getValue() != buffer.getInt(position + 4)) {
+                break; // Torn by a crash mid-write; nothing after it was written either
+            }
+            if (consumer != null) {
+                Type type = Type.of(record.get());
+                long time = record.getLong();
+                double amount = record.getDouble();
+                String player = getString(record);
+                String detail = getString(record);
+                if (type != null) {
+                    consumer.accept(new Event(time, type, player, amount, detail));
+                }
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) NULL_FIELD);
+            return;
+        }
+        String clipped = value.length() > MAX_FIELD_CHARS ? value.substring(0, MAX_FIELD_CHARS) : value;
+        byte[] bytes = clipped.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length == NULL_FIELD) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().matches("events-\\d{8}\\.seg"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("events-".length(), name.length() - ".seg".length()));
+    }
+}
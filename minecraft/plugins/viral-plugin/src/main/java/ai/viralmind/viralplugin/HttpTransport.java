@@ -0,0 +1,105 @@
+package ai.viralmind.viralplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The plugin's shared HTTP client. Prefers HTTP/2 (falling back to HTTP/1.1), bounds every
+ * connect and request with a timeout, asks for gzip and decodes it, and serializes JSON bodies
+ * with Gson.
+ */
+public class HttpTransport {
+    private final HttpClient client;
+    private final Gson gson;
+    private final Duration requestTimeout;
+
+    public HttpTransport(Executor executor, Gson gson, Duration connectTimeout, Duration requestTimeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+        this.gson = gson;
+        this.requestTimeout = requestTimeout;
+    }
+
+    // The underlying client, for long-lived requests such as the chat stream that must not time out
+    public HttpClient client() {
+        return client;
+    }
+
+    // A GET that times out and accepts a gzipped response
+    public HttpRequest.Builder get(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Accept-Encoding", "gzip")
+                .GET();
+    }
+
+    // A POST of the body as JSON
+    public HttpRequest.Builder postJson(URI uri, JsonElement body) {
+        return postJson(uri, gson.toJson(body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A POST of an already serialized JSON body
+    public HttpRequest.Builder postJson(URI uri, byte[] json) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json));
+    }
+
+    // Sends and reads the whole body as a string
+    public HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpTransport::ofDecodedString);
+    }
+
+    // Sends and returns the body as a stream for parsing as it arrives; see body()
+    public HttpResponse<InputStream> sendStreaming(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    // Sends asynchronously and reads the whole body as a string
+    public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        return client.sendAsync(request, HttpTransport::ofDecodedString);
+    }
+
+    // The response body, gunzipped if the server compressed it
+    public static InputStream body(HttpResponse<InputStream> response) throws IOException {
+        return isGzip(response.headers()) ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private static HttpResponse.BodySubscriber<String> ofDecodedString(HttpResponse.ResponseInfo info) {
+        if (!isGzip(info.headers())) {
+            return HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+        }
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static boolean isGzip(HttpHeaders headers) {
+        return headers.firstValue("Content-Encoding").map(value -> value.equalsIgnoreCase("gzip")).orElse(false);
+    }
+}
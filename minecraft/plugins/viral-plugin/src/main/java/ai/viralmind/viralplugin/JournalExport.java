@@ -0,0 +1,113 @@
+package ai.viralmind.viralplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Offline export of the event journal as JSON lines, one event per line, oldest first.
+ * Runs from the plugin jar without a server:
+ * {@code java -cp ViralPlugin-1.0-SNAPSHOT.jar ai.viralmind.viralplugin.JournalExport plugins/ViralPlugin/events
+ * [--type=kick,refused] [--player=name] [--since=2025-01-01T00:00:00Z] [--until=...] [--count]}
+ */
+public final class JournalExport {
+    private JournalExport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = null;
+        Set<EventJournal.Type> types = EnumSet.allOf(EventJournal.Type.class);
+        String player = null;
+        long since = Long.MIN_VALUE;
+        long until = Long.MAX_VALUE;
+        boolean countOnly = false;
+
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--type=")) {
+                types = EnumSet.noneOf(EventJournal.Type.class);
+                for (String type : value.split(",")) {
+                    types.add(EventJournal.Type.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+                }
+            } else if (arg.startsWith("--player=")) {
+                player = value;
+            } else if (arg.startsWith("--since=")) {
+                since = Instant.parse(value).toEpochMilli();
+            } else if (arg.startsWith("--until=")) {
+                until = Instant.parse(value).toEpochMilli();
+            } else if (arg.equals("--count")) {
+                countOnly = true;
+            } else if (!arg.startsWith("--") && dir == null) {
+                dir = Path.of(arg);
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (dir == null) {
+            System.err.println("Usage: JournalExport <journal dir> [--type=a,b] [--player=name] [--since=instant]"
+                    + " [--until=instant] [--count]");
+            System.exit(2);
+        }
+
+        Set<EventJournal.Type> wanted = types;
+        String wantedPlayer = player;
+        long from = since;
+        long to = until;
+        boolean count = countOnly;
+        Gson gson = new Gson();
+        long[] matched = { 0 };
+
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            EventJournal.read(dir, event -> {
+                if (!wanted.contains(event.type()) || event.time() < from || event.time() >= to
+                        || (wantedPlayer != null && !wantedPlayer.equalsIgnoreCase(event.player()))) {
+                    return;
+                }
+                matched[0]++;
+                if (!count) {
+                    try {
+                        out.write(gson.toJson(toJson(event)));
+                        out.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            if (count) {
+                out.write(Long.toString(matched[0]));
+                out.newLine();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            out.flush();
+        }
+    }
+
+    public static JsonObject toJson(EventJournal.Event event) {
+        JsonObject json = new JsonObject();
+        json.addProperty("time", Instant.ofEpochMilli(event.time()).toString());
+        json.addProperty("type", event.type().id());
+        if (event.player() != null) {
+            json.addProperty("player", event.player());
+        }
+        if (event.amount() != 0) {
+            json.addProperty("amount", event.amount());
+        }
+        if (event.detail() != null) {
+            json.addProperty("detail", event.detail());
+        }
+        return json;
+    }
+}
@@ -0,0 +1,96 @@
+package ai.viralmind.viralplugin;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear latency histogram in microseconds (HdrHistogram-style buckets:
+ * 16 linear sub-buckets per power of two, so about 6% relative error up to ~9 hours).
+ * Recording is lock-free and allocation-free; percentiles are computed on read.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 35;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos, boolean ok) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(index(micros));
+        count.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+        if (!ok) {
+            errors.incrementAndGet();
+        }
+    }
+
+    // Records the time since a System.nanoTime() start
+    public void recordSince(long startNanos, boolean ok) {
+        record(System.nanoTime() - startNanos, ok);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    public long sumMicros() {
+        return sumMicros.get();
+    }
+
+    public long maxMicros() {
+        return maxMicros.get();
+    }
+
+    // Upper bound of the bucket holding the given quantile (0..1), in microseconds
+    public long percentileMicros(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    // Values below 16 get their own bucket; above that, 16 buckets per power of two
+    static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        long sub = Math.min((micros >>> (exponent - SUB_BITS)) - SUB_BUCKETS, SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
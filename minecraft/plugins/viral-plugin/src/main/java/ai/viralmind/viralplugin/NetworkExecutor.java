@@ -0,0 +1,118 @@
+package ai.viralmind.viralplugin;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The plugin's own execution layer for blocking network I/O, kept apart from the
+ * Bukkit async scheduler and the common ForkJoin pool. Uses virtual threads when the
+ * JVM has them (Java 21+) and a bounded platform pool otherwise. Every task has a deadline,
+ * and {@link #shutdown()} cancels whatever is still running. Senders that own a thread of
+ * their own (chat, webhook, reward claims) don't go through it.
+ */
+public class NetworkExecutor {
+    private static final int PLATFORM_THREADS = 16;
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final long timeoutMs;
+    private final Set<Future<?>> running = ConcurrentHashMap.newKeySet();
+
+    public NetworkExecutor(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+
+        ExecutorService virtualExecutor = newVirtualExecutor();
+        if (virtualExecutor != null) {
+            executor = virtualExecutor;
+            virtual = true;
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(1024), r -> {
+                        Thread thread = new Thread(r, "ViralPlugin-IO-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+            virtual = false;
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() through reflection, so the plugin still builds for Java 17
+    private static ExecutorService newVirtualExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // Raw executor, e.g. for the HttpClient's async callbacks
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    // Runs a blocking call and fails it once the deadline passes
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    // Already timed out or cancelled while queued
+                    if (result.isDone()) {
+                        return;
+                    }
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        running.add(future);
+        // Interrupt the call if it outlives its deadline (HttpClient.send is interruptible)
+        result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            running.remove(future);
+            if (error != null) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // Cancels everything in flight and stops accepting work
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Future<?> future : running) {
+            future.cancel(true);
+        }
+        running.clear();
+    }
+}
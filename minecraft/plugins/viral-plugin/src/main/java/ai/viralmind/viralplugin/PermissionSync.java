@@ -0,0 +1,136 @@
+package ai.viralmind.viralplugin;
+
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeEqualityPredicate;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Applies LuckPerms permission nodes off the main thread, writing only when they change.
+ * Requests are coalesced per player and node (the last one wins) and flushed together
+ * {@code flushDelayMs} after the first, so a join wave turns into one pass. Each request is
+ * compared with the user's current nodes and only real changes go through modifyUser, which
+ * loads, edits and saves on LuckPerms' own executor.
+ */
+public class PermissionSync {
+    private record Key(UUID uuid, String permission) {
+    }
+
+    private record Desired(String playerName, boolean granted) {
+    }
+
+    private final UserManager userManager;
+    private final Logger logger;
+    private final long flushDelayMs;
+    private final LatencyHistogram latency;
+    private final Map<Key, Desired> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+
+    public PermissionSync(LuckPerms luckPerms, Logger logger, long flushDelayMs, LatencyHistogram latency) {
+        this.userManager = luckPerms.getUserManager();
+        this.logger = logger;
+        this.flushDelayMs = flushDelayMs;
+        this.latency = latency;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ViralPlugin-Permissions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Records that a player should (or shouldn't) have a node; never blocks
+    public void request(UUID uuid, String playerName, String permission, boolean granted) {
+        pending.put(new Key(uuid, permission), new Desired(playerName, granted));
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.schedule(this::flush, flushDelayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; shutdown() flushes what is left
+            }
+        }
+    }
+
+    public long written() {
+        return written.get();
+    }
+
+    public long unchanged() {
+        return unchanged.get();
+    }
+
+    public int pending() {
+        return pending.size();
+    }
+
+    // Starts the writes for everything still pending; LuckPerms finishes them on its own executor
+    public void shutdown() {
+        executor.shutdownNow();
+        flush();
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        for (Key key : pending.keySet()) {
+            Desired desired = pending.remove(key);
+            if (desired != null) {
+                apply(key, desired);
+            }
+        }
+    }
+
+    private void apply(Key key, Desired desired) {
+        Node node = Node.builder(key.permission()).build();
+        long start = System.nanoTime();
+
+        // Online players are already loaded, so the check is in memory; anyone else is loaded async
+        User loaded = userManager.getUser(key.uuid());
+        CompletableFuture<User> user = loaded != null ? CompletableFuture.completedFuture(loaded)
+                : userManager.loadUser(key.uuid());
+
+        user.thenCompose(current -> {
+            if (hasNode(current, node) == desired.granted()) {
+                unchanged.incrementAndGet();
+                return CompletableFuture.completedFuture(false);
+            }
+            return userManager.modifyUser(key.uuid(), target -> {
+                if (desired.granted()) {
+                    target.data().add(node);
+                } else {
+                    target.data().remove(node);
+                }
+            }).thenApply(v -> true);
+        }).whenComplete((changed, error) -> {
+            if (error != null) {
+                latency.recordSince(start, false);
+                logger.warning("Failed to update " + key.permission() + " for " + desired.playerName() + ": "
+                        + error.getMessage());
+                return;
+            }
+            if (changed) {
+                latency.recordSince(start, true);
+                written.incrementAndGet();
+            }
+        });
+    }
+
+    private static boolean hasNode(User user, Node node) {
+        return user.data().contains(node, NodeEqualityPredicate.IGNORE_EXPIRY_TIME).asBoolean();
+    }
+}
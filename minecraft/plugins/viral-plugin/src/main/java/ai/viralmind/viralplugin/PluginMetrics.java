@@ -0,0 +1,139 @@
+package ai.viralmind.viralplugin;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry for the plugin's hot-path numbers: latency histograms per endpoint, counters,
+ * and gauges read on demand (queue depths). Histograms and counters are created up front
+ * by the components that own them, so recording never allocates.
+ * Rendered by /viralstats and, when a port is configured, as Prometheus text on /metrics.
+ */
+public class PluginMetrics {
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // Wraps a main-thread task so its run time lands in the histogram "main.<name>"
+    public Runnable timed(String name, Runnable task) {
+        LatencyHistogram histogram = histogram("main." + name);
+        return () -> {
+            long start = System.nanoTime();
+            boolean ok = false;
+            try {
+                task.run();
+                ok = true;
+            } finally {
+                histogram.recordSince(start, ok);
+            }
+        };
+    }
+
+    // Human-readable summary for /viralstats
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        histograms.forEach((name, h) -> {
+            if (h.count() > 0) {
+                lines.add(String.format("%s: n=%d err=%d p50=%s p90=%s p99=%s max=%s", name, h.count(), h.errors(),
+                        formatMicros(h.percentileMicros(0.5)), formatMicros(h.percentileMicros(0.9)),
+                        formatMicros(h.percentileMicros(0.99)), formatMicros(h.maxMicros())));
+            }
+        });
+        counters.forEach((name, value) -> lines.add(name + ": " + value.sum()));
+        gauges.forEach((name, value) -> lines.add(name + ": " + value.getAsLong()));
+        return lines;
+    }
+
+    // Prometheus text exposition format (histograms as summaries, in seconds)
+    public String prometheus() {
+        StringBuilder out = new StringBuilder();
+        histograms.forEach((name, h) -> {
+            String metric = "viralplugin_" + sanitize(name) + "_seconds";
+            out.append("# TYPE ").append(metric).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                out.append(metric).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(h.percentileMicros(quantile) / 1e6).append('\n');
+            }
+            out.append(metric).append("_sum ").append(h.sumMicros() / 1e6).append('\n');
+            out.append(metric).append("_count ").append(h.count()).append('\n');
+            String errors = "viralplugin_" + sanitize(name) + "_errors_total";
+            out.append("# TYPE ").append(errors).append(" counter\n");
+            out.append(errors).append(' ').append(h.errors()).append('\n');
+        });
+        counters.forEach((name, value) -> {
+            String metric = "viralplugin_" + sanitize(name) + "_total";
+            out.append("# TYPE ").append(metric).append(" counter\n");
+            out.append(metric).append(' ').append(value.sum()).append('\n');
+        });
+        gauges.forEach((name, value) -> {
+            String metric = "viralplugin_" + sanitize(name);
+            out.append("# TYPE ").append(metric).append(" gauge\n");
+            out.append(metric).append(' ').append(value.getAsLong()).append('\n');
+        });
+        return out.toString();
+    }
+
+    // Serves GET /metrics on its own daemon thread
+    public void startServer(String host, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        serverExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ViralPlugin-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(serverExecutor);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = prometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            server = null;
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static String formatMicros(long micros) {
+        return micros >= 1000 ? String.format("%.1fms", micros / 1000.0) : micros + "µs";
+    }
+}
@@ -0,0 +1,110 @@
+package ai.viralmind.viralplugin;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Decides how long to wait before the next challenge poll.
+ * Polls every {@code minDelayMs} while messages are flowing, and backs off exponentially
+ * (with ±20% jitter) from {@code baseDelayMs} while idle, up to {@code maxIdleDelayMs}, or
+ * after failures, up to {@code maxErrorDelayMs}. After {@code failureThreshold} failures in
+ * a row the circuit opens: no polls for {@code openMs}, then a single trial poll decides
+ * whether it closes again. State changes are logged.
+ */
+public class PollScheduler {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final Logger logger;
+    private final long minDelayMs;
+    private final long baseDelayMs;
+    private final long maxIdleDelayMs;
+    private final long maxErrorDelayMs;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private State state = State.CLOSED;
+    private int idleStreak;
+    private int failures;
+    private long lastDelayMs;
+
+    public PollScheduler(Logger logger, long minDelayMs, long baseDelayMs, long maxIdleDelayMs, long maxErrorDelayMs,
+            int failureThreshold, long openMs) {
+        this.logger = logger;
+        this.minDelayMs = minDelayMs;
+        this.baseDelayMs = baseDelayMs;
+        this.maxIdleDelayMs = maxIdleDelayMs;
+        this.maxErrorDelayMs = maxErrorDelayMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    // A poll went through; returns the delay before the next one
+    public synchronized long onSuccess(int newMessages) {
+        if (state != State.CLOSED) {
+            transition(State.CLOSED, "poll succeeded after " + failures + " failures");
+        }
+        failures = 0;
+
+        if (newMessages > 0) {
+            idleStreak = 0;
+            return delay(minDelayMs);
+        }
+        idleStreak++;
+        return delay(backoff(idleStreak, maxIdleDelayMs));
+    }
+
+    // A poll failed; returns the delay before the next one
+    public synchronized long onFailure(Throwable error) {
+        failures++;
+        idleStreak = 0;
+
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            transition(State.OPEN, failures + " failures in a row (" + error.getMessage() + "), pausing polls for "
+                    + openMs + "ms");
+            return delay(openMs);
+        }
+        if (state == State.CLOSED && failures == 1) {
+            logger.warning("Challenge poll failed, backing off: " + error.getMessage());
+        }
+        return delay(backoff(failures, maxErrorDelayMs));
+    }
+
+    // Nothing was polled (e.g. the chat stream is live); check again soon without touching the backoff
+    public synchronized long onSkipped() {
+        return delay(baseDelayMs);
+    }
+
+    // Called when an open circuit's pause is over, right before the trial poll
+    public synchronized void beforePoll() {
+        if (state == State.OPEN) {
+            transition(State.HALF_OPEN, "trying one poll");
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized long lastDelayMs() {
+        return lastDelayMs;
+    }
+
+    // Doubles from the base delay per step, with jitter so restarted servers don't poll in lockstep
+    private long backoff(int streak, long max) {
+        long delay = baseDelayMs << Math.min(streak - 1, 20); // Capped shift so it can't overflow
+        long jittered = (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+        return Math.min(jittered, max);
+    }
+
+    private long delay(long delayMs) {
+        lastDelayMs = delayMs;
+        return delayMs;
+    }
+
+    private void transition(State next, String reason) {
+        logger.info("Challenge poll circuit " + state + " -> " + next + ": " + reason);
+        state = next;
+    }
+}
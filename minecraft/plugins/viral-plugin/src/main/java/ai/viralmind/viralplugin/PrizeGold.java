@@ -0,0 +1,43 @@
+package ai.viralmind.viralplugin;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.List;
+
+/**
+ * Creates Prize Gold and recognizes it on right-click.
+ * getItemMeta() hands out a fresh copy of the meta on every call, so the check rejects
+ * anything that isn't a gold ingot (or has no meta) before touching it, and reads the meta
+ * at most once. Ordinary right-clicks allocate nothing.
+ */
+public final class PrizeGold {
+    private final NamespacedKey key;
+
+    public PrizeGold(NamespacedKey key) {
+        this.key = key;
+    }
+
+    public ItemStack create() {
+        ItemStack item = new ItemStack(Material.GOLD_INGOT, 1);
+        ItemMeta meta = item.getItemMeta();
+
+        meta.setDisplayName("§6Prize Gold");
+        meta.setLore(List.of("§eRight click me to claim the prize!"));
+
+        meta.getPersistentDataContainer().set(key, PersistentDataType.BYTE, (byte) 1);
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    public boolean matches(ItemStack item) {
+        if (item == null || item.getType() != Material.GOLD_INGOT || !item.hasItemMeta()) {
+            return false;
+        }
+        ItemMeta meta = item.getItemMeta();
+        return meta != null && meta.getPersistentDataContainer().has(key, PersistentDataType.BYTE);
+    }
+}
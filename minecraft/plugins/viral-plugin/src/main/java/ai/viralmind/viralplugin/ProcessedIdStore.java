@@ -0,0 +1,161 @@
+package ai.viralmind.viralplugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Dedup store for relayed chat message IDs.
+ * IDs are appended one per line to a log and fsync'd in batches. Only the most recent
+ * {@code retain} IDs are kept in memory, and the log is compacted down to them once it
+ * grows past twice that. Forgotten IDs are still recognized by {@link #seen}: message IDs
+ * are ObjectIds, which sort by creation time, so anything not newer than the last relayed
+ * ID counts as seen. That matters for the full relay mode, which reads the whole history on
+ * every poll; the incremental cursor never asks for older messages in the first place.
+ */
+public class ProcessedIdStore implements AutoCloseable {
+    private static final int SYNC_EVERY = 64;
+    private static final Pattern OBJECT_ID = Pattern.compile("[0-9a-f]{24}");
+
+    private final Path logPath;
+    private final int retain;
+    private final Set<String> recent;
+    private FileChannel channel;
+    private int logLines;
+    private int unsynced;
+    private String lastId;
+
+    public ProcessedIdStore(File logFile, int retain) {
+        this.logPath = logFile.toPath();
+        this.retain = retain;
+        this.recent = Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > ProcessedIdStore.this.retain;
+            }
+        });
+    }
+
+    // Loads the log (bounded by compaction) and opens it for appending
+    public synchronized void open() throws IOException {
+        Files.createDirectories(logPath.getParent());
+        if (Files.exists(logPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        recent.add(line);
+                        lastId = line;
+                        logLines++;
+                    }
+                }
+            }
+        }
+        channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (logLines > retain * 2) {
+            compact();
+        }
+    }
+
+    // Imports IDs from an older store format, without making them the newest ID
+    public synchronized void importAll(Collection<String> ids) throws IOException {
+        String newest = lastId;
+        for (String id : ids) {
+            add(id);
+        }
+        lastId = newest;
+        flush();
+    }
+
+    public synchronized boolean contains(String id) {
+        return recent.contains(id);
+    }
+
+    // True if the ID is retained, or is an ObjectId no newer than the last one added
+    public synchronized boolean seen(String id) {
+        if (recent.contains(id)) {
+            return true;
+        }
+        return lastId != null && OBJECT_ID.matcher(id).matches() && OBJECT_ID.matcher(lastId).matches()
+                && id.compareTo(lastId) <= 0;
+    }
+
+    // Records an ID; returns false if it was already present
+    public synchronized boolean add(String id) throws IOException {
+        if (!recent.add(id)) {
+            return false;
+        }
+        lastId = id;
+
+        channel.write(ByteBuffer.wrap((id + "\n").getBytes(StandardCharsets.UTF_8)));
+        logLines++;
+        if (++unsynced >= SYNC_EVERY) {
+            flush();
+        }
+        if (logLines > retain * 2) {
+            compact();
+        }
+        return true;
+    }
+
+    // The most recently added ID, or null if the store is empty
+    public synchronized String lastId() {
+        return lastId;
+    }
+
+    public synchronized int size() {
+        return recent.size();
+    }
+
+    // Forces pending appends to disk
+    public synchronized void flush() throws IOException {
+        if (unsynced > 0 && channel != null) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    // Rewrites the log to hold only the retained IDs, then swaps it in atomically
+    private void compact() throws IOException {
+        Path tmp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        StringBuilder contents = new StringBuilder();
+        for (String id : recent) {
+            contents.append(id).append('\n');
+        }
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(contents.toString().getBytes(StandardCharsets.UTF_8)));
+            out.force(false);
+        }
+
+        channel.close();
+        Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        logLines = recent.size();
+        unsynced = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+            channel = null;
+        }
+    }
+}
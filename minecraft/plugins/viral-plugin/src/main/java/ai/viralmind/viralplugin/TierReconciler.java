@@ -0,0 +1,138 @@
+package ai.viralmind.viralplugin;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps online players' balance tiers in line with the whitelist without a rejoin.
+ * Players are tracked with the tier they were last given. Each new whitelist snapshot is diffed
+ * against the previous one in a single pass off the main thread (an unchanged snapshot costs
+ * nothing), and only tracked players whose tier actually moved are queued. {@link #drain} then
+ * applies at most a batch of those per tick, so main-thread work follows the number of changed
+ * players rather than the number online.
+ */
+public class TierReconciler {
+    public enum Tier {
+        NONE, MEMBER, VIP
+    }
+
+    // entry is null when the player left the whitelist
+    public record Change(UUID uuid, String username, Tier from, Tier to, WhitelistIndex.Entry entry) {
+    }
+
+    private record Tracked(UUID uuid, String username, Tier tier) {
+    }
+
+    // Balance needed to stay on the server, and to see true coordinates
+    public static final double MIN_BALANCE = 25000;
+    public static final double VIP_BALANCE = 1000000;
+
+    private final Map<String, Tracked> online = new ConcurrentHashMap<>(); // Keyed by lowercase name
+    private final Queue<Change> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong applied = new AtomicLong();
+    private Map<String, WhitelistIndex.Entry> last; // Guarded by this
+
+    public Tier tierOf(WhitelistIndex.Entry entry) {
+        if (entry == null || entry.balance() < MIN_BALANCE) {
+            return Tier.NONE;
+        }
+        return entry.balance() > VIP_BALANCE ? Tier.VIP : Tier.MEMBER;
+    }
+
+    // Main thread: the player was just given this tier
+    public void track(UUID uuid, String username, Tier tier) {
+        online.put(username.toLowerCase(Locale.ROOT), new Tracked(uuid, username, tier));
+    }
+
+    public void untrack(String username) {
+        online.remove(username.toLowerCase(Locale.ROOT));
+    }
+
+    // Any thread: diffs the snapshot against the last one seen and queues the online players it moved
+    public synchronized int reconcile(Map<String, WhitelistIndex.Entry> snapshot) {
+        Map<String, WhitelistIndex.Entry> previous = last;
+        if (snapshot == previous) {
+            return 0; // Not modified since the last fetch
+        }
+        last = snapshot;
+        if (previous == null) {
+            return 0; // Everyone online was admitted against this snapshot or an equally fresh one
+        }
+
+        int queued = 0;
+        int kept = 0;
+        for (Map.Entry<String, WhitelistIndex.Entry> current : snapshot.entrySet()) {
+            WhitelistIndex.Entry before = previous.get(current.getKey());
+            if (before != null) {
+                kept++;
+            }
+            if (tierOf(before) != tierOf(current.getValue())) {
+                queued += enqueue(current.getKey(), current.getValue());
+            }
+        }
+        // Only walk the old snapshot when some of its players are gone from the new one
+        if (kept < previous.size()) {
+            for (String key : previous.keySet()) {
+                if (!snapshot.containsKey(key)) {
+                    queued += enqueue(key, null);
+                }
+            }
+        }
+        return queued;
+    }
+
+    // Main thread: hands up to max queued changes to apply, skipping any the player has since outgrown
+    public int drain(int max, Consumer<Change> apply) {
+        int done = 0;
+        Change change;
+        while (done < max && (change = pending.poll()) != null) {
+            size.decrementAndGet();
+            String key = change.username().toLowerCase(Locale.ROOT);
+            Tracked tracked = online.get(key);
+            if (tracked == null || !tracked.uuid().equals(change.uuid()) || tracked.tier() == change.to()) {
+                continue; // Left, rejoined, or already given this tier
+            }
+            if (change.to() == Tier.NONE) {
+                online.remove(key);
+            } else {
+                online.put(key, new Tracked(tracked.uuid(), tracked.username(), change.to()));
+            }
+            apply.accept(new Change(tracked.uuid(), tracked.username(), tracked.tier(), change.to(),
+                    change.entry()));
+            applied.incrementAndGet();
+            done++;
+        }
+        return done;
+    }
+
+    public int pending() {
+        return size.get();
+    }
+
+    public long applied() {
+        return applied.get();
+    }
+
+    public int tracked() {
+        return online.size();
+    }
+
+    private int enqueue(String key, WhitelistIndex.Entry entry) {
+        Tracked tracked = online.get(key);
+        Tier tier = tierOf(entry);
+        if (tracked == null || tracked.tier() == tier) {
+            return 0;
+        }
+        pending.add(new Change(tracked.uuid(), tracked.username(), tracked.tier(), tier, entry));
+        size.incrementAndGet();
+        return 1;
+    }
+}
@@ -3,24 +3,21 @@ package ai.viralmind.viralplugin;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
 import net.luckperms.api.LuckPerms;
-import net.luckperms.api.model.user.User;
-import net.luckperms.api.node.Node;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.block.Action;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
@@ -28,34 +25,116 @@ import org.bukkit.scheduler.BukkitTask;
 import io.github.cdimascio.dotenv.Dotenv;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.URLEncoder;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ViralPlugin extends JavaPlugin implements Listener {
     private final Dotenv dotenv = Dotenv.load();
     private final String API_SECRET = dotenv.get("API_SECRET");
     private final String API_ORIGIN = dotenv.get("API_ORIGIN");
     private final String CHALLENGE_NAME = dotenv.get("CHALLENGE_NAME");
-    private final boolean USE_MOCK_API = "True".equals(dotenv.get("USE_MOCK_API"));
+    private final String CHALLENGES = dotenv.get("CHALLENGES", "");
+    private final String CHAT_RELAY_MODE = dotenv.get("CHAT_RELAY_MODE", "incremental").toLowerCase();
+    private final boolean INCREMENTAL_RELAY = !CHAT_RELAY_MODE.equals("full");
+    private final String VERIFY_MODE = dotenv.get("VERIFY_MODE", "prelogin").toLowerCase();
+    private final boolean PRELOGIN_VERIFY = !VERIFY_MODE.equals("join");
+    private final long PRELOGIN_WAIT_MS = Long.parseLong(dotenv.get("PRELOGIN_WAIT_MS", "3000"));
     private final String webhookUrl = dotenv.get("DISCORD_WEBHOOK_URL");
-    private NamespacedKey prizeGoldKey;
+    private final int WEBHOOK_QUEUE_SIZE = Integer.parseInt(dotenv.get("WEBHOOK_QUEUE_SIZE", "1000"));
+    private final long WEBHOOK_INTERVAL_MS = Long.parseLong(dotenv.get("WEBHOOK_INTERVAL_MS", "2000"));
+    private final String WEBHOOK_EVENTS = dotenv.get("WEBHOOK_EVENTS",
+            "join,refused,kick,verify_failed,vip,claim,chat,api_error");
+    private final boolean EVENT_JOURNAL = !"false".equalsIgnoreCase(dotenv.get("EVENT_JOURNAL", "true"));
+    private final int EVENT_SEGMENT_MB = Integer.parseInt(dotenv.get("EVENT_SEGMENT_MB", "16"));
+    private final int EVENT_SEGMENTS = Integer.parseInt(dotenv.get("EVENT_SEGMENTS", "32"));
+    private final int EVENT_QUEUE_SIZE = Integer.parseInt(dotenv.get("EVENT_QUEUE_SIZE", "10000"));
+    private final long WHITELIST_TTL_SECONDS = Long.parseLong(dotenv.get("WHITELIST_TTL_SECONDS", "30"));
+    private final int TIER_CHANGES_PER_TICK = Integer.parseInt(dotenv.get("TIER_CHANGES_PER_TICK", "20"));
+    private static final String INSUFFICIENT_BALANCE = String.format(Locale.ROOT,
+            "§cInsufficient Balance - Required: %,.0f VIRAL", TierReconciler.MIN_BALANCE);
+    // /messages/batch refuses requests for more feeds than this
+    private static final int MAX_FEEDS_PER_POLL = 20;
+    private final int PROCESSED_IDS_RETAIN = Integer.parseInt(dotenv.get("PROCESSED_IDS_RETAIN", "10000"));
+    private PrizeGold prizeGold;
     private final Set<String> blacklistedPlayers = new HashSet<>();
     private final Set<String> vipPlayers = new HashSet<>();
     private final Gson gson = new Gson();
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final long NETWORK_TIMEOUT_SECONDS = Long.parseLong(dotenv.get("NETWORK_TIMEOUT_SECONDS", "10"));
+    private final long NETWORK_CONNECT_TIMEOUT_SECONDS = Long.parseLong(dotenv.get("NETWORK_CONNECT_TIMEOUT_SECONDS",
+            "5"));
+    private final int CHAT_QUEUE_SIZE = Integer.parseInt(dotenv.get("CHAT_QUEUE_SIZE", "1000"));
+    private final int CHAT_BATCH_SIZE = Integer.parseInt(dotenv.get("CHAT_BATCH_SIZE", "50"));
+    private final long CHAT_BATCH_LINGER_MS = Long.parseLong(dotenv.get("CHAT_BATCH_LINGER_MS", "20"));
+    private final double BROADCAST_TICK_BUDGET_MS = Double.parseDouble(dotenv.get("BROADCAST_TICK_BUDGET_MS", "2"));
+    private final int BROADCAST_BACKLOG = Integer.parseInt(dotenv.get("BROADCAST_BACKLOG", "500"));
+    private final int METRICS_PORT = Integer.parseInt(dotenv.get("METRICS_PORT", "0"));
+    private final String METRICS_BIND = dotenv.get("METRICS_BIND", "127.0.0.1");
+    private final long POLL_MIN_MS = Long.parseLong(dotenv.get("POLL_MIN_MS", "500"));
+    private final long POLL_MAX_IDLE_MS = Long.parseLong(dotenv.get("POLL_MAX_IDLE_MS", "10000"));
+    private final long POLL_MAX_BACKOFF_MS = Long.parseLong(dotenv.get("POLL_MAX_BACKOFF_MS", "60000"));
+    private final int POLL_BREAKER_THRESHOLD = Integer.parseInt(dotenv.get("POLL_BREAKER_THRESHOLD", "5"));
+    private final long POLL_BREAKER_OPEN_MS = Long.parseLong(dotenv.get("POLL_BREAKER_OPEN_MS", "30000"));
+    private final long PERMISSION_FLUSH_MS = Long.parseLong(dotenv.get("PERMISSION_FLUSH_MS", "250"));
+    private final NetworkExecutor io = new NetworkExecutor(NETWORK_TIMEOUT_SECONDS * 1000);
+    private final HttpTransport http = new HttpTransport(io.executor(), gson,
+            Duration.ofSeconds(NETWORK_CONNECT_TIMEOUT_SECONDS), Duration.ofSeconds(NETWORK_TIMEOUT_SECONDS));
+    private final PluginMetrics metrics = new PluginMetrics();
+    private final LatencyHistogram pollLatency = metrics.histogram("http.poll");
+    private final LatencyHistogram rewardLatency = metrics.histogram("http.reward");
+    private final LatencyHistogram preLoginLatency = metrics.histogram("prelogin.verify");
+    private final LongAdder relayedMessages = metrics.counter("relay.relayed");
+    private final LongAdder duplicateMessages = metrics.counter("relay.duplicate");
+    // Whitelist entries of players admitted at pre-login, picked up by the join handler
+    private final Map<UUID, WhitelistIndex.Entry> admitted = new ConcurrentHashMap<>();
     private LuckPerms luckPerms;
-
-    private Set<String> processedMessageIds = new HashSet<>();
-    private File processedIdsFile;
-    private BukkitTask pollTask;
+    private PermissionSync permissionSync;
+    private WebhookDispatcher webhook;
+    private EventJournal journal;
+    // Event types mirrored to the webhook, with the fraction of each that is sent
+    private final Map<EventJournal.Type, Double> webhookEvents = new EnumMap<>(EventJournal.Type.class);
+    private ChatForwarder chatForwarder;
+    private WhitelistIndex whitelistIndex;
+    private final TierReconciler tiers = new TierReconciler();
+
+    private final List<ChallengeFeed> feeds = new ArrayList<>();
+    private final Map<String, ChallengeFeed> feedsByName = new HashMap<>(); // Keyed by lowercase name
+    private final Set<String> failingFeeds = ConcurrentHashMap.newKeySet();
+    private ClaimOutbox claims;
+    private boolean tournamentEnded;
+    private BroadcastQueue broadcasts;
+    private BukkitTask broadcastTask;
+    private PollScheduler pollScheduler;
+    private volatile BukkitTask pollTask;
+    private BukkitTask whitelistTask;
+    private BukkitTask tierTask;
+    private ChallengeChatStream chatStream;
+    private final Object relayLock = new Object();
 
     @Override
     public void onEnable() {
@@ -63,6 +142,8 @@ public class ViralPlugin extends JavaPlugin implements Listener {
         RegisteredServiceProvider<LuckPerms> provider = Bukkit.getServicesManager().getRegistration(LuckPerms.class);
         if (provider != null) {
             luckPerms = provider.getProvider();
+            permissionSync = new PermissionSync(luckPerms, getLogger(), PERMISSION_FLUSH_MS,
+                    metrics.histogram("luckperms.modify"));
             getLogger().info("Successfully hooked into LuckPerms!");
         } else {
             getLogger().severe("Could not find LuckPerms! Plugin will be disabled.");
@@ -70,8 +151,45 @@ public class ViralPlugin extends JavaPlugin implements Listener {
             return;
         }
 
+        // Polls run here. Chat and the webhook have sender threads of their own, and reward claims go out one at a
+        // time from the claim outbox's thread, keyed by claimId so a resend can't conclude the tournament twice
+        getLogger().info("Network I/O runs on " + (io.isVirtual() ? "virtual" : "platform") + " threads");
+
+        openEventJournal();
+        if (webhookUrl == null || webhookUrl.isEmpty()) {
+            getLogger().warning("Webhook URL is not configured!");
+        } else {
+            webhook = new WebhookDispatcher(http, webhookUrl, gson, getLogger(), WEBHOOK_QUEUE_SIZE,
+                    WEBHOOK_INTERVAL_MS, metrics.histogram("http.webhook"));
+        }
+
+        int chatBatchSize = Math.min(CHAT_BATCH_SIZE, ChatForwarder.MAX_BATCH);
+        if (chatBatchSize < CHAT_BATCH_SIZE) {
+            getLogger().warning("CHAT_BATCH_SIZE=" + CHAT_BATCH_SIZE + " is above the API's limit; using "
+                    + chatBatchSize);
+        }
+        chatForwarder = new ChatForwarder(http, String.format("%s/api/minecraft/chat/batch", API_ORIGIN),
+                API_SECRET, getLogger(), error -> recordEvent(EventJournal.Type.API_ERROR, null, 0, error),
+                CHAT_QUEUE_SIZE, chatBatchSize, CHAT_BATCH_LINGER_MS, metrics.histogram("http.chat"));
+
+        getLogger().info("Chat relay mode is " + CHAT_RELAY_MODE.toUpperCase());
+        loadFeeds();
+        if (feeds.isEmpty()) {
+            getLogger().severe("Neither CHALLENGE_NAME nor CHALLENGES names a challenge! Plugin will be disabled.");
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+
+        // A server configured only with CHALLENGES checks joins against its first challenge
+        String whitelistChallenge = CHALLENGE_NAME != null && !CHALLENGE_NAME.isBlank() ? CHALLENGE_NAME
+                : feeds.get(0).name();
+        String whitelistName = URLEncoder.encode(whitelistChallenge, StandardCharsets.UTF_8);
+        whitelistIndex = new WhitelistIndex(http,
+                URI.create(String.format("%s/api/minecraft/whitelist?name=%s", API_ORIGIN, whitelistName)), gson,
+                getLogger(), WHITELIST_TTL_SECONDS * 1000, metrics.histogram("http.whitelist"));
+
         getServer().getPluginManager().registerEvents(this, this);
-        prizeGoldKey = new NamespacedKey(this, "prize_gold");
+        prizeGold = new PrizeGold(new NamespacedKey(this, "prize_gold"));
         initializeBlacklist();
         initializeVipPlayers();
 
@@ -89,104 +207,140 @@ public class ViralPlugin extends JavaPlugin implements Listener {
             return false;
         });
 
-        getLogger().info("Mock API is " + (USE_MOCK_API ? "ENABLED" : "DISABLED"));
-        processedIdsFile = new File(getDataFolder(), "processed_ids.json");
-        loadProcessedIds();
+        this.getCommand("viralstats").setExecutor((sender, command, label, args) -> {
+            sender.sendMessage("§6§lViralPlugin stats");
+            for (String line : metrics.describe()) {
+                sender.sendMessage("§7" + line);
+            }
+            return true;
+        });
+
+        openClaimOutbox();
+        startBroadcastTask();
         startPollingTask();
+        startWhitelistRefreshTask();
+        startTierTask();
+        if (CHAT_RELAY_MODE.equals("stream") && !feeds.isEmpty()) {
+            startChatStream();
+        }
+        startMetrics();
     }
 
-    // Helper method to manage LuckPerms permissions
-    private void updatePlayerPermissions(Player player, boolean shouldHaveBypass) {
-        User user = luckPerms.getUserManager().getUser(player.getUniqueId());
-        if (user == null) {
-            getLogger().warning("Could not find LuckPerms user for " + player.getName());
-            return;
+    // Queue depths are read on demand; optionally serve everything as Prometheus text
+    private void startMetrics() {
+        metrics.gauge("broadcast.pending", broadcasts::pending);
+        metrics.gauge("broadcast.dropped", broadcasts::dropped);
+        metrics.gauge("chat.queue", chatForwarder::queueDepth);
+        metrics.gauge("chat.dropped", chatForwarder::dropped);
+        metrics.gauge("processed_ids.retained",
+                () -> feeds.stream().mapToLong(feed -> feed.processedIds().size()).sum());
+        metrics.gauge("poll.delay_ms", pollScheduler::lastDelayMs);
+        metrics.gauge("poll.circuit_state", () -> pollScheduler.state().ordinal());
+        metrics.gauge("permissions.pending", permissionSync::pending);
+        metrics.gauge("permissions.written", permissionSync::written);
+        metrics.gauge("permissions.unchanged", permissionSync::unchanged);
+        metrics.gauge("claims.pending", claims::pending);
+        metrics.gauge("tiers.tracked", tiers::tracked);
+        metrics.gauge("tiers.pending", tiers::pending);
+        metrics.gauge("tiers.applied", tiers::applied);
+        if (journal != null) {
+            metrics.gauge("journal.written", journal::written);
+            metrics.gauge("journal.dropped", journal::dropped);
+            metrics.gauge("journal.queue", journal::queueDepth);
+        }
+        if (webhook != null) {
+            metrics.gauge("webhook.queue", webhook::queueDepth);
+            metrics.gauge("webhook.dropped", webhook::dropped);
         }
 
-        // Remove existing permission if it exists
-        user.data().remove(Node.builder("coordinateoffset.bypass").build());
-
-        // Add permission if needed
-        if (shouldHaveBypass) {
-            user.data().add(Node.builder("coordinateoffset.bypass").build());
+        if (METRICS_PORT > 0) {
+            try {
+                metrics.startServer(METRICS_BIND, METRICS_PORT);
+                getLogger().info("Serving metrics on http://" + METRICS_BIND + ":" + METRICS_PORT + "/metrics");
+            } catch (IOException e) {
+                getLogger().warning("Failed to start metrics endpoint: " + e.getMessage());
+            }
         }
+    }
 
-        // Save changes
-        luckPerms.getUserManager().saveUser(user);
+    // Helper method to manage LuckPerms permissions; the write happens off the main thread and
+    // only when the player's node actually changes
+    private void updatePlayerPermissions(Player player, boolean shouldHaveBypass) {
+        permissionSync.request(player.getUniqueId(), player.getName(), "coordinateoffset.bypass", shouldHaveBypass);
     }
 
-    private String getMockApiResponse(String playerName) {
-        if (playerName.equalsIgnoreCase("throwaway_name")) {
-            return """
-                    {
-                        "whitelist": [{
-                            "username": "throwaway_name",
-                            "address": "rich_player_address_J31XET6BiQE2eiVgx2PF6G45rPK6VNKWKrog4u2gj5nv",
-                            "viral_balance": 2000000.0,
-                            "signature": "mock_signature",
-                            "_id": "mock_id"
-                        }]
-                    }
-                    """;
-        } else if (playerName.equalsIgnoreCase("poor_player")) {
-            return """
-                    {
-                        "whitelist": [{
-                            "username": "poor_player",
-                            "address": "poor_player_address_A31XET6BiQE2eiVgx2PF6G45rPK6VNKWKrog4u2gj5nv",
-                            "viral_balance": 10000.0,
-                            "signature": "mock_signature",
-                            "_id": "mock_id"
-                        }]
-                    }
-                    """;
-        } else if (playerName.equalsIgnoreCase("normal_player")) {
-            return """
-                    {
-                        "whitelist": [{
-                            "username": "normal_player",
-                            "address": "normal_player_address_B31XET6BiQE2eiVgx2PF6G45rPK6VNKWKrog4u2gj5nv",
-                            "viral_balance": 50000.0,
-                            "signature": "mock_signature",
-                            "_id": "mock_id"
-                        }]
-                    }
-                    """;
+    // The journal is the record of what happened; the webhook only gets the types (and share) WEBHOOK_EVENTS lists
+    private void openEventJournal() {
+        for (String entry : WEBHOOK_EVENTS.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            try {
+                webhookEvents.put(EventJournal.Type.valueOf(parts[0].toUpperCase(Locale.ROOT)),
+                        parts.length > 1 ? Double.parseDouble(parts[1]) : 1.0);
+            } catch (IllegalArgumentException e) {
+                getLogger().warning("Ignoring WEBHOOK_EVENTS entry '" + entry + "'");
+            }
         }
-        return """
-                {
-                    "whitelist": []
-                }
-                """;
-    }
 
-    // Add this helper method near the top of the class
-    private void sendWebhookMessage(String content, String username) {
-        if (webhookUrl == null || webhookUrl.isEmpty()) {
-            getLogger().warning("Webhook URL is not configured!");
+        if (!EVENT_JOURNAL) {
             return;
         }
+        // A segment is a single mapping, so it can't reach 2 GB
+        long segmentBytes = EVENT_SEGMENT_MB * 1024L * 1024L;
+        if (segmentBytes > Integer.MAX_VALUE) {
+            getLogger().warning("EVENT_SEGMENT_MB=" + EVENT_SEGMENT_MB + " is too large (at most 2047); "
+                    + "the event journal is disabled");
+            return;
+        }
+        try {
+            journal = new EventJournal(new File(getDataFolder(), "events"), (int) segmentBytes, EVENT_SEGMENTS,
+                    EVENT_QUEUE_SIZE, getLogger());
+            journal.open();
+        } catch (IOException | IllegalArgumentException e) {
+            getLogger().warning("Failed to open the event journal: " + e.getMessage());
+            journal = null;
+        }
+    }
 
-        CompletableFuture.runAsync(() -> {
-            try {
-                String webhookJson = String.format("""
-                        {
-                            "content": "%s",
-                            "username": "%s"
-                        }
-                        """, content.replace("\"", "\\\""), username);
-
-                HttpRequest webhookRequest = HttpRequest.newBuilder()
-                        .uri(URI.create(webhookUrl))
-                        .header("Content-Type", "application/json")
-                        .POST(HttpRequest.BodyPublishers.ofString(webhookJson))
-                        .build();
-
-                httpClient.send(webhookRequest, HttpResponse.BodyHandlers.ofString());
-            } catch (Exception e) {
-                getLogger().warning("Failed to send webhook message: " + e.getMessage());
-            }
-        });
+    // Records an event without blocking the caller; safe from any thread
+    private void recordEvent(EventJournal.Type type, String player, double amount, String detail) {
+        if (journal != null) {
+            journal.append(type, player, amount, detail);
+        }
+        Double rate = webhookEvents.get(type);
+        if (webhook != null && rate != null && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate)) {
+            webhook.enqueue(describeEvent(type, player, amount, detail), webhookUsername(type));
+        }
+    }
+
+    private static String describeEvent(EventJournal.Type type, String player, double amount, String detail) {
+        return switch (type) {
+            case JOIN -> String.format("👋 **Join**: %s has joined the server", player);
+            case REFUSED -> String.format("🚫 **Kick**: %s was refused (Insufficient balance: %f VIRAL)", player,
+                    amount);
+            case KICK -> String.format("🚫 **Kick**: %s was kicked (Insufficient balance: %f VIRAL)", player, amount);
+            case VERIFY_FAILED -> String.format("❌ **Error**: Failed to check balance for %s: %s", player, detail);
+            case VIP -> String.format("🎉 **VIP**: %s granted VIP permissions (Balance: %f VIRAL)", player, amount);
+            case CLAIM -> String.format("Player %s has claimed their Prize Gold!", player);
+            case CLAIM_CONFIRMED -> String.format("🏆 **Prize**: %s's claim was confirmed (transaction %s)", player,
+                    detail);
+            case CLAIM_REJECTED -> String.format("❌ **Prize**: %s's claim was rejected: %s", player, detail);
+            case CHAT -> String.format("💬 **Chat**: %s: %s", player, detail);
+            case API_ERROR -> "❌ **API Error**: " + detail;
+        };
+    }
+
+    private static String webhookUsername(EventJournal.Type type) {
+        return switch (type) {
+            case JOIN -> "Player Logger";
+            case REFUSED, KICK -> "Balance Logger";
+            case VIP -> "VIP Logger";
+            case CLAIM, CLAIM_CONFIRMED, CLAIM_REJECTED -> "Prize Gold Bot";
+            case CHAT -> "Chat Logger";
+            case VERIFY_FAILED, API_ERROR -> "Error Logger";
+        };
     }
 
     @Override
@@ -196,112 +350,468 @@ public class ViralPlugin extends JavaPlugin implements Listener {
             pollTask.cancel();
         }
 
-        // Save processed IDs
-        saveProcessedIds();
+        if (broadcastTask != null) {
+            broadcastTask.cancel();
+        }
+
+        if (whitelistTask != null) {
+            whitelistTask.cancel();
+        }
+
+        if (tierTask != null) {
+            tierTask.cancel();
+        }
+
+        // Close the chat stream if running
+        if (chatStream != null) {
+            chatStream.stop();
+        }
+
+        // Send what is left of the chat queue, then the webhook queue (which may log chat errors)
+        if (chatForwarder != null) {
+            chatForwarder.shutdown();
+        }
+
+        if (webhook != null) {
+            webhook.shutdown();
+        }
+
+        // Hand pending permission changes to LuckPerms
+        if (permissionSync != null) {
+            permissionSync.shutdown();
+        }
+
+        // After the senders above, so their last errors are recorded too
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                getLogger().warning("Failed to close the event journal: " + e.getMessage());
+            }
+        }
+
+        // Cancel polls still in flight and the HTTP client's pending callbacks
+        io.shutdown();
+        metrics.stopServer();
+
+        // Unanswered claims stay in the journal for the next start
+        if (claims != null) {
+            try {
+                claims.close();
+            } catch (IOException e) {
+                getLogger().warning("Failed to close the reward claim journal: " + e.getMessage());
+            }
+        }
+
+        // Flush and close the processed ID logs
+        for (ChallengeFeed feed : feeds) {
+            try {
+                feed.processedIds().close();
+            } catch (Exception e) {
+                getLogger().warning("Failed to save processed message IDs: " + e.getMessage());
+            }
+        }
     }
 
-    private void loadProcessedIds() {
+    // Reward claims are journaled before they are sent; any a crash left unanswered are sent again
+    private void openClaimOutbox() {
+        claims = new ClaimOutbox(new File(getDataFolder(), "claims.log"), http,
+                URI.create(String.format("%s/api/minecraft/reward", API_ORIGIN)), API_SECRET, gson, getLogger(),
+                rewardLatency,
+                (claim, transaction) -> {
+                    recordEvent(EventJournal.Type.CLAIM_CONFIRMED, claim.username(), 0, transaction);
+                    getServer().getScheduler().runTask(this, () -> endTournament(claim.username()));
+                });
         try {
-            if (!getDataFolder().exists()) {
-                getDataFolder().mkdirs();
+            claims.open();
+            int replayed = claims.replay();
+            if (replayed > 0) {
+                getLogger().info("Resending " + replayed + " pending reward claims");
             }
+        } catch (IOException e) {
+            getLogger().warning("Failed to open the reward claim journal: " + e.getMessage());
+        }
+    }
 
-            if (processedIdsFile.exists()) {
-                String json = new String(Files.readAllBytes(processedIdsFile.toPath()));
-                TypeToken<HashSet<String>> typeToken = new TypeToken<>() {
-                };
-                Set<String> loaded = gson.fromJson(json, typeToken.getType());
-                if (loaded != null) {
-                    processedMessageIds = loaded;
+    // Main thread: announces the winner and stops the server, once
+    private void endTournament(String winner) {
+        if (tournamentEnded) {
+            return;
+        }
+        tournamentEnded = true;
+
+        // Broadcast tournament end messages
+        Bukkit.broadcastMessage("");
+        Bukkit.broadcastMessage("§6§l⚔ Tournament Complete! §r§eThe prize has been claimed by " + winner + "!");
+        Bukkit.broadcastMessage("§c§lServer shutting down in 10 seconds...");
+        Bukkit.broadcastMessage("");
+
+        // Schedule server shutdown
+        getServer().getScheduler().runTaskLater(this, () -> Bukkit.shutdown(), 200L); // 10 seconds = 200 ticks
+    }
+
+    // One feed per relayed challenge; without CHALLENGES, CHALLENGE_NAME is the only one
+    private void loadFeeds() {
+        String spec = CHALLENGES.isBlank() ? (CHALLENGE_NAME != null ? CHALLENGE_NAME : "") : CHALLENGES;
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            try {
+                ChallengeFeed feed = ChallengeFeed.parse(entry, this::openProcessedIds);
+                if (feedsByName.putIfAbsent(feed.name().toLowerCase(Locale.ROOT), feed) == null) {
+                    feeds.add(feed);
+                    loadProcessedIds(feed);
                 }
+            } catch (IllegalArgumentException e) {
+                getLogger().warning("Ignoring CHALLENGES entry: " + e.getMessage());
             }
-        } catch (Exception e) {
-            getLogger().warning("Failed to load processed message IDs: " + e.getMessage());
+        }
+        if (feeds.size() > 1) {
+            getLogger().info("Relaying chat from " + feeds.size() + " challenges");
         }
     }
 
-    private void saveProcessedIds() {
+    // CHALLENGE_NAME keeps the original processed_ids.log; other challenges get a log of their own
+    private ProcessedIdStore openProcessedIds(String challenge) {
+        String file = challenge.equalsIgnoreCase(CHALLENGE_NAME) ? "processed_ids.log"
+                : "processed_ids-" + challenge.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]", "_") + ".log";
+        return new ProcessedIdStore(new File(getDataFolder(), file), PROCESSED_IDS_RETAIN);
+    }
+
+    private void loadProcessedIds(ChallengeFeed feed) {
+        ProcessedIdStore processedIds = feed.processedIds();
         try {
-            if (!getDataFolder().exists()) {
-                getDataFolder().mkdirs();
+            processedIds.open();
+
+            // Migrate the old JSON snapshot into the log once
+            File legacyFile = new File(getDataFolder(), "processed_ids.json");
+            if (feed.name().equalsIgnoreCase(CHALLENGE_NAME) && legacyFile.exists()) {
+                String json = new String(Files.readAllBytes(legacyFile.toPath()));
+                String[] loaded = gson.fromJson(json, String[].class);
+                if (loaded != null) {
+                    processedIds.importAll(Arrays.asList(loaded));
+                }
+                Files.delete(legacyFile.toPath());
+                getLogger().info("Migrated " + (loaded != null ? loaded.length : 0) + " processed message IDs");
             }
 
-            String json = gson.toJson(processedMessageIds);
-            Files.write(processedIdsFile.toPath(), json.getBytes());
+            // Resume the incremental relay from the newest message relayed before the restart
+            String lastId = processedIds.lastId();
+            if (lastId != null && lastId.matches("[0-9a-f]{24}")) {
+                feed.setCursor(lastId);
+            }
         } catch (Exception e) {
-            getLogger().warning("Failed to save processed message IDs: " + e.getMessage());
+            getLogger().warning("Failed to load processed message IDs: " + e.getMessage());
         }
     }
 
+    // Delivers relayed chat on the main thread, a bounded amount per tick
+    private void startBroadcastTask() {
+        broadcasts = new BroadcastQueue(getServer(), (long) (BROADCAST_TICK_BUDGET_MS * 1_000_000),
+                BROADCAST_BACKLOG);
+        broadcastTask = getServer().getScheduler().runTaskTimer(this, metrics.timed("broadcast", broadcasts::drain), 1L,
+                1L);
+    }
+
     private void startPollingTask() {
-        pollTask = getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+        // Backoff starts from the old fixed one-second interval
+        pollScheduler = new PollScheduler(getLogger(), POLL_MIN_MS, 1000, POLL_MAX_IDLE_MS, POLL_MAX_BACKOFF_MS,
+                POLL_BREAKER_THRESHOLD, POLL_BREAKER_OPEN_MS);
+        schedulePoll(0);
+    }
+
+    // Each poll schedules the next one when it finishes, so there is never more than one in flight
+    private void schedulePoll(long delayMs) {
+        if (!isEnabled()) {
+            return;
+        }
+        // The tick only dispatches; the blocking work runs on the plugin's network executor
+        pollTask = getServer().getScheduler().runTaskLater(this, metrics.timed("poll", this::dispatchPoll),
+                Math.max(1L, delayMs / 50));
+    }
+
+    private void dispatchPoll() {
+        io.submit(() -> {
             try {
-                String response;
-                if (USE_MOCK_API) {
-                    response = getMockChallengeResponse();
-                } else {
-                    HttpRequest request = HttpRequest.newBuilder()
-                            .uri(URI.create(String.format("%s/api/challenges/get-challenge?name=" + CHALLENGE_NAME,
-                                    API_ORIGIN)))
-                            .GET()
-                            .build();
-                    response = httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+                // The stream delivers messages as they happen; only poll while it is down
+                if (chatStream != null && chatStream.isLive()) {
+                    return -1;
                 }
+                pollScheduler.beforePoll();
+                return pollFeeds();
+            } finally {
+                flushProcessedIds();
+            }
+        }).whenComplete((relayed, error) -> {
+            long delayMs;
+            if (error != null) {
+                delayMs = pollScheduler.onFailure(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else if (relayed < 0) {
+                delayMs = pollScheduler.onSkipped();
+            } else {
+                delayMs = pollScheduler.onSuccess(relayed);
+            }
+            schedulePoll(delayMs);
+        });
+    }
 
-                JsonObject jsonObj = gson.fromJson(response, JsonObject.class);
-                JsonArray chatHistory = jsonObj.getAsJsonArray("chatHistory");
+    // Keeps the whitelist index warm so joins rarely wait on a fetch
+    private void startWhitelistRefreshTask() {
+        long periodTicks = Math.max(20L, WHITELIST_TTL_SECONDS * 20);
+        // refresh() is non-blocking, so this can tick on the main thread; the diff runs when the fetch completes
+        whitelistTask = getServer().getScheduler().runTaskTimer(this, metrics.timed("whitelist",
+                () -> whitelistIndex.refresh().thenRun(() -> tiers.reconcile(whitelistIndex.snapshot()))), 0L,
+                periodTicks);
+    }
 
-                for (int i = 0; i < chatHistory.size(); i++) {
-                    JsonObject message = chatHistory.get(i).getAsJsonObject();
-                    String messageId = message.get("_id").getAsString();
-                    String role = message.get("role").getAsString();
+    // Applies tier changes found by the whitelist refresh, a batch per tick
+    private void startTierTask() {
+        tierTask = getServer().getScheduler().runTaskTimer(this,
+                metrics.timed("tiers", () -> tiers.drain(TIER_CHANGES_PER_TICK, this::applyTierChange)), 1L, 1L);
+    }
 
-                    if (!processedMessageIds.contains(messageId) && role.equals("user")) {
-                        String content = message.get("content").getAsString();
+    private void startChatStream() {
+        String name = URLEncoder.encode(feeds.get(0).name(), StandardCharsets.UTF_8);
+        URI streamUri = URI.create(String.format("%s/api/streams/challenge-chat?name=%s", API_ORIGIN, name));
+
+        // The stream stays open indefinitely, so it only gets the connect timeout
+        chatStream = new ChallengeChatStream(http.client(), streamUri, gson, getLogger(), message -> {
+            // The stream carries every challenge's chat, so one connection serves all feeds
+            ChallengeFeed feed = message.has("challenge")
+                    ? feedsByName.get(message.get("challenge").getAsString().toLowerCase(Locale.ROOT))
+                    : null;
+            if (!message.has("_id") || feed == null) {
+                return;
+            }
+            synchronized (relayLock) {
+                String messageId = message.get("_id").getAsString();
+                relayMessage(feed, messageId, message.get("role").getAsString(),
+                        message.get("content").getAsString());
+                feed.setCursor(messageId);
+            }
+        }, () -> {
+            // Catch up on anything sent while the stream was down
+            io.run(() -> {
+                try {
+                    pollFeeds();
+                } catch (Exception e) {
+                    getLogger().warning("Failed to catch up on chat after reconnecting: " + e.getMessage());
+                }
+            });
+        });
+        chatStream.start();
+    }
 
-                        // Broadcast message on main thread
-                        getServer().getScheduler().runTask(this, () -> {
-                            // Create fake chat message from "chat" player
-                            String formattedMessage = ChatColor.translateAlternateColorCodes('&',
-                                    String.format("&d&l[chat] &r%s", content));
+    // Relays new messages for every feed and returns how many were relayed
+    private int pollFeeds() throws Exception {
+        // Fetched without the lock, so live stream messages aren't held up behind a slow or stalled poll
+        long start = System.nanoTime();
+        Map<ChallengeFeed, List<ChatHistoryReader.Message>> fetched;
+        try {
+            fetched = fetchFeeds();
+        } catch (Exception e) {
+            pollLatency.recordSince(start, false);
+            throw e;
+        }
+        pollLatency.recordSince(start, true);
+
+        // Dedup goes through each feed's ProcessedIdStore, so messages the stream relayed meanwhile are skipped
+        synchronized (relayLock) {
+            int relayed = 0;
+            for (Map.Entry<ChallengeFeed, List<ChatHistoryReader.Message>> entry : fetched.entrySet()) {
+                ChallengeFeed feed = entry.getKey();
+                List<ChatHistoryReader.Message> chatHistory = entry.getValue();
+                for (ChatHistoryReader.Message message : chatHistory) {
+                    if (relayMessage(feed, message.id(), message.role(), message.content())) {
+                        relayed++;
+                    }
+                }
+
+                // Messages arrive oldest first, so the last one is the new high-water mark, unless the stream
+                // already moved the cursor past it while this poll was in flight (ObjectIds sort by time)
+                if (INCREMENTAL_RELAY && !chatHistory.isEmpty()) {
+                    String newest = chatHistory.get(chatHistory.size() - 1).id();
+                    if (feed.cursor() == null || newest.compareTo(feed.cursor()) > 0) {
+                        feed.setCursor(newest);
+                    }
+                }
+            }
+            return relayed;
+        }
+    }
 
-                            // Broadcast to all online players
-                            for (Player player : getServer().getOnlinePlayers()) {
-                                player.sendMessage(formattedMessage);
-                            }
-                        });
+    // Feeds polled incrementally share batched requests of up to MAX_FEEDS_PER_POLL; otherwise each feed is
+    // fetched in turn
+    private Map<ChallengeFeed, List<ChatHistoryReader.Message>> fetchFeeds() throws Exception {
+        Map<ChallengeFeed, List<ChatHistoryReader.Message>> fetched = new LinkedHashMap<>();
+        if (!INCREMENTAL_RELAY || feeds.size() < 2) {
+            for (ChallengeFeed feed : feeds) {
+                fetched.put(feed, INCREMENTAL_RELAY ? fetchNewMessages(feed) : fetchChatHistory(feed));
+            }
+            return fetched;
+        }
 
-                        processedMessageIds.add(messageId);
-                        saveProcessedIds(); // Save after each new message
+        for (int from = 0; from < feeds.size(); from += MAX_FEEDS_PER_POLL) {
+            List<ChallengeFeed> chunk = feeds.subList(from, Math.min(from + MAX_FEEDS_PER_POLL, feeds.size()));
+            for (ChatHistoryReader.Feed result : ChatHistoryReader.readFeeds(openBatchPollBody(chunk))) {
+                ChallengeFeed feed = feedsByName.get(result.name().toLowerCase(Locale.ROOT));
+                if (feed == null) {
+                    continue;
+                }
+                // Report a failing challenge once, not on every poll
+                if (result.error() != null) {
+                    if (failingFeeds.add(feed.name())) {
+                        getLogger().warning("Cannot relay chat from " + feed.name() + ": " + result.error());
                     }
+                    continue;
                 }
+                failingFeeds.remove(feed.name());
+                fetched.put(feed, result.messages());
+            }
+        }
+        return fetched;
+    }
+
+    // Broadcasts a user message to the feed's audience unless it was already relayed; returns true if it
+    // was broadcast. Callers hold relayLock.
+    private boolean relayMessage(ChallengeFeed feed, String messageId, String role, String content) {
+        if (!role.equals("user")) {
+            return false;
+        }
+        ProcessedIdStore processedIds = feed.processedIds();
+        if (processedIds.contains(messageId)) {
+            duplicateMessages.increment();
+            return false;
+        }
+        relayedMessages.increment();
+
+        // Create fake chat message from "chat" player; formatted here, sent by the main-thread broadcast queue.
+        // With several feeds the tag names the challenge.
+        String tag = feeds.size() > 1 ? feed.name() : "chat";
+        broadcasts.offer(ChatColor.translateAlternateColorCodes('&', String.format("&d&l[%s] &r%s", tag, content)),
+                feed.audience());
+
+        try {
+            processedIds.add(messageId); // Appended now, fsync'd in batches
+        } catch (Exception e) {
+            getLogger().warning("Failed to save processed message ID: " + e.getMessage());
+        }
+        return true;
+    }
+
+    private void flushProcessedIds() {
+        for (ChallengeFeed feed : feeds) {
+            try {
+                feed.processedIds().flush();
             } catch (Exception e) {
-                getLogger().warning("Failed to poll challenge API: " + e.getMessage());
-                getLogger().warning(String.format("%s/api/challenges/get-challenge?name=" + CHALLENGE_NAME,
-                        API_ORIGIN));
+                getLogger().warning("Failed to save processed message IDs: " + e.getMessage());
             }
-        }, 0L, 20L); // Run every second (20 ticks)
-    }
-
-    private String getMockChallengeResponse() {
-        // For testing, create a response that rotates through different messages
-        long currentTime = System.currentTimeMillis();
-        String mockId = String.valueOf(currentTime);
-
-        return String.format("""
-                {
-                    "chatHistory": [
-                        {
-                            "_id": "%s",
-                            "challenge": "viral_lua",
-                            "role": "user",
-                            "content": "This is a test message from the mock API at %s",
-                            "address": "mock_address",
-                            "date": "2024-12-21T15:48:53.195Z"
-                        }
-                    ]
-                }
-                """, mockId, currentTime);
+        }
+    }
+
+    private String getPollUrl(ChallengeFeed feed) {
+        String name = URLEncoder.encode(feed.name(), StandardCharsets.UTF_8);
+        if (!INCREMENTAL_RELAY) {
+            // Newest first, so the streaming parse can stop at the first message already relayed
+            return String.format("%s/api/challenges/get-challenge?name=%s&order=desc", API_ORIGIN, name);
+        }
+
+        String cursor = feed.cursor();
+        return String.format("%s/api/minecraft/messages?name=%s", API_ORIGIN, name)
+                + (cursor != null ? "&after=" + cursor : "");
+    }
+
+    // Fetches the chat history from get-challenge (legacy full relay mode), stopping at the first
+    // message already relayed, so only new messages are ever held in memory
+    private List<ChatHistoryReader.Message> fetchChatHistory(ChallengeFeed feed) throws Exception {
+        return ChatHistoryReader.read(openPollBody(feed), "chatHistory",
+                feed.processedIds()::seen);
+    }
+
+    // Fetches only the messages newer than the feed's cursor (incremental relay mode)
+    private List<ChatHistoryReader.Message> fetchNewMessages(ChallengeFeed feed) throws Exception {
+        // Nothing is filtered here: the cursor must advance past duplicates too
+        return ChatHistoryReader.read(openPollBody(feed), "messages", id -> false);
+    }
+
+    // The poll response body as a stream; it is parsed as it arrives instead of buffered into a String
+    private InputStream openPollBody(ChallengeFeed feed) throws Exception {
+        return sendPoll(http.get(URI.create(getPollUrl(feed))).build());
+    }
+
+    // One request for these feeds' new messages, each after its own cursor
+    private InputStream openBatchPollBody(List<ChallengeFeed> chunk) throws Exception {
+        JsonArray batch = new JsonArray();
+        for (ChallengeFeed feed : chunk) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("name", feed.name());
+            if (feed.cursor() != null) {
+                entry.addProperty("after", feed.cursor());
+            }
+            batch.add(entry);
+        }
+        JsonObject body = new JsonObject();
+        body.add("feeds", batch);
+
+        return sendPoll(http.postJson(URI.create(String.format("%s/api/minecraft/messages/batch", API_ORIGIN)), body)
+                .build());
+    }
+
+    private InputStream sendPoll(HttpRequest request) throws Exception {
+        HttpResponse<InputStream> response = http.sendStreaming(request);
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Unexpected status " + response.statusCode());
+        }
+        return HttpTransport.body(response);
+    }
+
+    // Runs on a login thread before the player is loaded, so rejected players never reach the world
+    @EventHandler
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        String playerName = event.getName();
+        if (!PRELOGIN_VERIFY || event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED
+                || isBypassPlayer(playerName)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        WhitelistIndex.Entry entry;
+        try {
+            // Served from the in-memory whitelist; a cold cache or a miss waits at most PRELOGIN_WAIT_MS
+            entry = lookupWhitelist(playerName).get(PRELOGIN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            preLoginLatency.recordSince(start, false);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            String reason = e instanceof TimeoutException ? "no answer within " + PRELOGIN_WAIT_MS + "ms"
+                    : e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            getLogger().warning("Failed to check player balance: " + reason);
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    "§cFailed to verify balance. Please try again later.");
+            recordEvent(EventJournal.Type.VERIFY_FAILED, playerName, 0, reason);
+            return;
+        }
+        preLoginLatency.recordSince(start, true);
+
+        if (!isAdmitted(entry)) {
+            double balance = entry != null ? entry.balance() : 0;
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_WHITELIST, INSUFFICIENT_BALANCE);
+            recordEvent(EventJournal.Type.REFUSED, playerName, balance, null);
+            return;
+        }
+        admitted.put(event.getUniqueId(), entry);
+    }
+
+    // Another plugin may still refuse the login after we admitted it; don't keep the entry around
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLoginResult(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            admitted.remove(event.getUniqueId());
+        }
     }
 
     @EventHandler
@@ -309,95 +819,109 @@ public class ViralPlugin extends JavaPlugin implements Listener {
         Player player = event.getPlayer();
         String playerName = player.getName();
 
-        sendWebhookMessage(String.format("👋 **Join**: %s has joined the server", playerName), "Player Logger");
+        recordEvent(EventJournal.Type.JOIN, playerName, 0, null);
 
-        if (playerName.equalsIgnoreCase("viral_steve") || playerName.equalsIgnoreCase("throwaway_name")) {
+        WhitelistIndex.Entry admission = admitted.remove(player.getUniqueId());
+        if (isBypassPlayer(playerName)) {
             updatePlayerPermissions(player, true);
             return;
         }
 
-        getServer().getScheduler().runTaskAsynchronously(this, () -> {
-            try {
-                String jsonResponse;
-                String playerAddress = "";
-
-                if (USE_MOCK_API) {
-                    jsonResponse = getMockApiResponse(playerName);
-                    getLogger().info("[Mock API] Checking balance for: " + playerName);
-                } else {
-                    HttpRequest request = HttpRequest.newBuilder()
-                            .uri(URI.create(
-                                    String.format("%s/api/minecraft/whitelist?name=" + CHALLENGE_NAME, API_ORIGIN)))
-                            .GET()
-                            .build();
-                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-                    jsonResponse = response.body();
-                }
-
-                JsonObject jsonObj = gson.fromJson(jsonResponse, JsonObject.class);
-                JsonArray whitelist = jsonObj.getAsJsonArray("whitelist");
-
-                double balance = 0;
-                boolean playerFound = false;
+        // Verified at pre-login; nothing left to fetch
+        if (admission != null) {
+            metrics.timed("join", () -> applyAdmission(player, admission)).run();
+            return;
+        }
 
-                for (int i = 0; i < whitelist.size(); i++) {
-                    JsonObject entry = whitelist.get(i).getAsJsonObject();
-                    if (entry.get("username").getAsString().equalsIgnoreCase(playerName)) {
-                        balance = entry.get("viral_balance").getAsDouble();
-                        playerAddress = entry.get("address").getAsString();
-                        playerFound = true;
-                        break;
-                    }
+        // VERIFY_MODE=join, or the player logged in before the plugin was enabled: check now
+        lookupWhitelist(playerName).whenComplete((entry, error) -> {
+            try {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    throw new Exception(cause.getMessage(), cause);
                 }
 
-                final double finalBalance = balance;
-                final boolean finalPlayerFound = playerFound;
-                final String finalAddress = playerAddress;
-
-                if (!finalPlayerFound || finalBalance < 25000) {
-                    sendWebhookMessage(String.format("🚫 **Kick**: %s was kicked (Insufficient balance: %f VIRAL)",
-                            playerName, finalBalance), "Balance Logger");
-                } else if (finalBalance > 1000000) {
-                    sendWebhookMessage(String.format("🎉 **VIP**: %s granted VIP permissions (Balance: %f VIRAL)",
-                            playerName, finalBalance), "VIP Logger");
+                final double finalBalance = entry != null ? entry.balance() : 0;
+                if (!isAdmitted(entry)) {
+                    recordEvent(EventJournal.Type.KICK, playerName, finalBalance, null);
                 }
 
-                getServer().getScheduler().runTask(this, () -> {
-                    if (!finalPlayerFound || finalBalance < 25000) {
-                        player.kickPlayer("§cInsufficient Balance - Required: 25,000 VIRAL");
-                        if (USE_MOCK_API) {
-                            getLogger().info(
-                                    "[Mock API] Player kicked: " + playerName + " (Balance: " + finalBalance + ")");
-                        }
+                getServer().getScheduler().runTask(this, metrics.timed("join", () -> {
+                    if (!isAdmitted(entry)) {
+                        player.kickPlayer(INSUFFICIENT_BALANCE);
                         return;
                     }
-
-                    player.sendMessage("§aYour VIRAL address: §f" + finalAddress);
-
-                    if (finalBalance > 1000000) {
-                        updatePlayerPermissions(player, true);
-                        player.sendMessage(
-                                "§a§lCoordinates Unlocked: §fSince you hold over 1,000,000 $VIRAL, your F3 coordinates show your true location!");
-                        if (USE_MOCK_API) {
-                            getLogger().info("[Mock API] VIP permissions granted to: " + playerName);
-                        }
-                    } else {
-                        updatePlayerPermissions(player, false);
-                        player.sendMessage(
-                                "§c§lCoordinates Hidden: §fYour F3 coordinates are currently hidden. To see your true location, you need to hold at least 1,000,000 $VIRAL.");
-                    }
-                });
+                    applyAdmission(player, entry);
+                }));
 
             } catch (Exception e) {
                 getLogger().warning("Failed to check player balance: " + e.getMessage());
                 getServer().getScheduler().runTask(this,
                         () -> player.kickPlayer("§cFailed to verify balance. Please try again later."));
-                sendWebhookMessage(String.format("❌ **Error**: Failed to check balance for %s: %s",
-                        playerName, e.getMessage()), "Error Logger");
+                recordEvent(EventJournal.Type.VERIFY_FAILED, playerName, 0, e.getMessage());
             }
         });
     }
 
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        tiers.untrack(event.getPlayer().getName());
+    }
+
+    private static boolean isBypassPlayer(String playerName) {
+        return playerName.equalsIgnoreCase("viral_steve") || playerName.equalsIgnoreCase("throwaway_name");
+    }
+
+    private static boolean isAdmitted(WhitelistIndex.Entry entry) {
+        return entry != null && entry.balance() >= TierReconciler.MIN_BALANCE;
+    }
+
+    // Main thread: tells an admitted player their address and sets their coordinate permission
+    private void applyAdmission(Player player, WhitelistIndex.Entry entry) {
+        player.sendMessage("§aYour VIRAL address: §f" + entry.address());
+        applyTier(player, entry);
+        tiers.track(player.getUniqueId(), player.getName(), tiers.tierOf(entry));
+    }
+
+    // Main thread: a balance change crossed a tier boundary while the player was online
+    private void applyTierChange(TierReconciler.Change change) {
+        Player player = getServer().getPlayer(change.uuid());
+        if (player == null) {
+            return;
+        }
+        if (change.to() == TierReconciler.Tier.NONE) {
+            // No entry means the player was taken off the whitelist, not that their balance fell
+            if (change.entry() == null) {
+                recordEvent(EventJournal.Type.KICK, player.getName(), 0, "removed from whitelist");
+                player.kickPlayer("§cYou are no longer on this challenge's whitelist");
+            } else {
+                recordEvent(EventJournal.Type.KICK, player.getName(), change.entry().balance(), null);
+                player.kickPlayer(INSUFFICIENT_BALANCE);
+            }
+            return;
+        }
+        applyTier(player, change.entry());
+    }
+
+    private void applyTier(Player player, WhitelistIndex.Entry entry) {
+        String playerName = player.getName();
+        if (entry.balance() > TierReconciler.VIP_BALANCE) {
+            recordEvent(EventJournal.Type.VIP, playerName, entry.balance(), null);
+            updatePlayerPermissions(player, true);
+            player.sendMessage(
+                    "§a§lCoordinates Unlocked: §fSince you hold over 1,000,000 $VIRAL, your F3 coordinates show your true location!");
+        } else {
+            updatePlayerPermissions(player, false);
+            player.sendMessage(
+                    "§c§lCoordinates Hidden: §fYour F3 coordinates are currently hidden. To see your true location, you need to hold at least 1,000,000 $VIRAL.");
+        }
+    }
+
+    private CompletableFuture<WhitelistIndex.Entry> lookupWhitelist(String playerName) {
+        return whitelistIndex.lookup(playerName).orTimeout(NETWORK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
     private void initializeBlacklist() {
         blacklistedPlayers.add("viral_steve");
         blacklistedPlayers.add("throwaway_name");
@@ -408,18 +932,7 @@ public class ViralPlugin extends JavaPlugin implements Listener {
     }
 
     public ItemStack createPrizeGold() {
-        ItemStack item = new ItemStack(Material.GOLD_INGOT, 1);
-        ItemMeta meta = item.getItemMeta();
-
-        meta.setDisplayName("§6Prize Gold");
-
-        List<String> lore = new ArrayList<>();
-        lore.add("§eRight click me to claim the prize!");
-        meta.setLore(lore);
-
-        meta.getPersistentDataContainer().set(prizeGoldKey, PersistentDataType.BYTE, (byte) 1);
-        item.setItemMeta(meta);
-        return item;
+        return prizeGold.create();
     }
 
     @EventHandler
@@ -428,82 +941,41 @@ public class ViralPlugin extends JavaPlugin implements Listener {
             return;
         }
 
+        // Checks the item type first, so ordinary right-clicks never copy the item meta
         ItemStack item = event.getItem();
-        if (item == null || !item.hasItemMeta()) {
+        if (!prizeGold.matches(item)) {
             return;
         }
 
         Player player = event.getPlayer();
         String playerName = player.getName();
 
-        if (item.getItemMeta().getPersistentDataContainer().has(prizeGoldKey, PersistentDataType.BYTE)) {
-            event.setCancelled(true);
+        event.setCancelled(true);
+
+        if (blacklistedPlayers.contains(playerName.toLowerCase())) {
+            player.sendMessage("§cYou are not allowed to use Prize Gold!");
+            return;
+        }
+
+        if (claims.hasPending(playerName)) {
+            player.sendMessage("§eYour prize claim is already being processed.");
+            return;
+        }
 
-            if (blacklistedPlayers.contains(playerName.toLowerCase())) {
-                player.sendMessage("§cYou are not allowed to use Prize Gold!");
+        // The claim is journaled before it is sent; the announcement goes out alongside it
+        claims.submit(playerName).whenComplete((transaction, error) -> getServer().getScheduler().runTask(this, () -> {
+            if (error != null) {
+                getLogger().warning("Failed to claim prize: " + error.getMessage());
+                recordEvent(EventJournal.Type.CLAIM_REJECTED, playerName, 0, error.getMessage());
+                player.sendMessage("§cFailed to claim prize. Please try again later.");
                 return;
             }
 
-            // Send webhook and reward claim
-            getServer().getScheduler().runTaskAsynchronously(this, () -> {
-                try {
-                    // First send Discord webhook
-                    String webhookJson = String.format("""
-                            {
-                                "content": "Player %s has claimed their Prize Gold!",
-                                "username": "Prize Gold Bot"
-                            }
-                            """, playerName);
-
-                    HttpRequest webhookRequest = HttpRequest.newBuilder()
-                            .uri(URI.create(webhookUrl))
-                            .header("Content-Type", "application/json")
-                            .POST(HttpRequest.BodyPublishers.ofString(webhookJson))
-                            .build();
-
-                    httpClient.send(webhookRequest, HttpResponse.BodyHandlers.ofString());
-
-                    // Then send reward claim
-                    String rewardJson = String.format("""
-                            {
-                                "username": "%s",
-                                "secret": "%s"
-                            }
-                            """, playerName, API_SECRET);
-
-                    HttpRequest rewardRequest = HttpRequest.newBuilder()
-                            .uri(URI.create(String.format("%s/api/minecraft/reward", API_ORIGIN)))
-                            .header("Content-Type", "application/json")
-                            .POST(HttpRequest.BodyPublishers.ofString(rewardJson))
-                            .build();
-
-                    httpClient.send(rewardRequest, HttpResponse.BodyHandlers.ofString());
-
-                    // Broadcast messages and schedule shutdown on main thread
-                    getServer().getScheduler().runTask(this, () -> {
-                        // Remove item and send success message
-                        item.setAmount(item.getAmount() - 1);
-                        player.sendMessage("§aPrize claimed successfully!");
-
-                        // Broadcast tournament end messages
-                        Bukkit.broadcastMessage("");
-                        Bukkit.broadcastMessage(
-                                "§6§l⚔ Tournament Complete! §r§eThe prize has been claimed by " + playerName + "!");
-                        Bukkit.broadcastMessage("§c§lServer shutting down in 10 seconds...");
-                        Bukkit.broadcastMessage("");
-
-                        // Schedule server shutdown
-                        getServer().getScheduler().runTaskLater(this, () -> Bukkit.shutdown(), 200L); // 10 seconds =
-                                                                                                      // 200 ticks
-                    });
-
-                } catch (Exception e) {
-                    getLogger().warning("Failed to send notifications: " + e.getMessage());
-                    getServer().getScheduler().runTask(this,
-                            () -> player.sendMessage("§cFailed to claim prize. Please try again later."));
-                }
-            });
-        }
+            // Remove item and send success message
+            item.setAmount(item.getAmount() - 1);
+            player.sendMessage("§aPrize claimed successfully!");
+        }));
+        recordEvent(EventJournal.Type.CLAIM, playerName, 0, null);
     }
 
     @EventHandler
@@ -512,33 +984,10 @@ public class ViralPlugin extends JavaPlugin implements Listener {
         String playerName = player.getName();
         String message = event.getMessage();
 
-        // Log all chat messages to webhook
-        sendWebhookMessage(String.format("💬 **Chat**: %s: %s", playerName, message), "Chat Logger");
+        // Every message goes to the journal; the webhook gets them unless WEBHOOK_EVENTS leaves chat out
+        recordEvent(EventJournal.Type.CHAT, playerName, 0, message);
 
-        // Send chat message to API
-        getServer().getScheduler().runTaskAsynchronously(this, () -> {
-            try {
-                String chatJson = String.format("""
-                        {
-                            "username": "%s",
-                            "content": "%s",
-                            "secret": "%s"
-                        }
-                        """, playerName, message.replace("\"", "\\\""), API_SECRET);
-
-                HttpRequest chatRequest = HttpRequest.newBuilder()
-                        .uri(URI.create(String.format("%s/api/minecraft/chat", API_ORIGIN)))
-                        .header("Content-Type", "application/json")
-                        .POST(HttpRequest.BodyPublishers.ofString(chatJson))
-                        .build();
-
-                httpClient.send(chatRequest, HttpResponse.BodyHandlers.ofString());
-            } catch (Exception e) {
-                getLogger().warning("Failed to send chat message to API: " + e.getMessage());
-                // Log API errors to webhook
-                sendWebhookMessage("❌ **API Error**: Failed to send chat message to API: " + e.getMessage(),
-                        "Error Logger");
-            }
-        });
+        // Send chat message to API; batched with other players' messages, in order
+        chatForwarder.enqueue(playerName, message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+package ai.viralmind.viralplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Discord webhook pipeline. Lines are queued (bounded, dropping when full) and a single
+ * thread sends them at a fixed rate, coalescing queued lines into one message under Discord's
+ * content limit. A message whose lines all come from one webhook username is posted under that
+ * name; a mixed one is posted as {@code MIXED_USERNAME} with each line tagged with its source.
+ * 429s are honored via Retry-After.
+ */
+public class WebhookDispatcher {
+    private static final int MAX_CONTENT = 2000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long REPORT_INTERVAL_MS = 60000;
+    private static final long SHUTDOWN_WAIT_MS = 2000;
+    private static final String MIXED_USERNAME = "Viral Logger";
+
+    private record Line(String username, String content) {
+    }
+
+    private final HttpTransport transport;
+    private final URI uri;
+    private final Gson gson;
+    private final Logger logger;
+    private final BlockingQueue<Line> queue;
+    private final ScheduledExecutorService executor;
+    private final LatencyHistogram latency;
+
+    // Only touched from the executor thread
+    private final List<Line> batch = new ArrayList<>();
+    private int attempts;
+    private long retryAt;
+    private long lastReport;
+    private long reportedDropped;
+    private long reportedRetried;
+
+    private final AtomicLong sentLines = new AtomicLong();
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public WebhookDispatcher(HttpTransport transport, String url, Gson gson, Logger logger, int capacity,
+            long intervalMs, LatencyHistogram latency) {
+        this.transport = transport;
+        this.uri = URI.create(url);
+        this.gson = gson;
+        this.logger = logger;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.latency = latency;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ViralPlugin-Webhook");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Queues a line without blocking; it is dropped and counted if the queue is full
+    public void enqueue(String content, String username) {
+        String line = content.length() > MAX_CONTENT ? content.substring(0, MAX_CONTENT - 1) + "…" : content;
+        if (!queue.offer(new Line(username, line))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public long sentLines() {
+        return sentLines.get();
+    }
+
+    public long retried() {
+        return retried.get();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    // Stops the send loop after one last attempt, bounded by SHUTDOWN_WAIT_MS, to deliver what is queued.
+    // The attempt runs on the sender thread, which owns the batch, rather than the caller's.
+    public void shutdown() {
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT_MS;
+        try {
+            executor.execute(() -> flushForShutdown(deadline));
+        } catch (RejectedExecutionException e) {
+            // Already shut down
+        }
+        executor.shutdown();
+        boolean stopped = false;
+        try {
+            stopped = executor.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!stopped) {
+            executor.shutdownNow(); // Abandons the post in flight
+            logger.warning("Discarded " + queue.size() + " webhook lines, and the message in flight, on shutdown");
+            return;
+        }
+        int remaining = batch.size() + queue.size();
+        if (remaining > 0) {
+            logger.warning("Discarded " + remaining + " webhook lines on shutdown");
+        }
+    }
+
+    // Sends message after message, ignoring the send rate, until the queue is empty, a send fails or time is up
+    private void flushForShutdown(long deadline) {
+        retryAt = 0;
+        do {
+            send();
+        } while (batch.isEmpty() && !queue.isEmpty() && System.currentTimeMillis() < deadline);
+    }
+
+    private void tick() {
+        try {
+            if (System.currentTimeMillis() >= retryAt) {
+                send();
+            }
+            report();
+        } catch (Exception e) {
+            logger.warning("Webhook dispatcher error: " + e.getMessage());
+        }
+    }
+
+    // Sends the pending batch, or builds a new one from the head of the queue
+    private void send() {
+        if (batch.isEmpty()) {
+            fillBatch();
+            attempts = 0;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        String username = batch.get(0).username();
+        boolean mixed = batch.stream().anyMatch(line -> !line.username().equals(username));
+        StringBuilder content = new StringBuilder();
+        for (Line line : batch) {
+            if (content.length() > 0) {
+                content.append('\n');
+            }
+            content.append(mixed ? tagged(line) : line.content());
+        }
+        if (content.length() > MAX_CONTENT) {
+            content.setLength(MAX_CONTENT - 1); // A single line that only overflows once tagged
+            content.append('…');
+        }
+
+        JsonObject payload = new JsonObject();
+        payload.addProperty("content", content.toString());
+        payload.addProperty("username", mixed ? MIXED_USERNAME : username);
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = transport.send(transport.postJson(uri, payload).build());
+            int status = response.statusCode();
+            latency.recordSince(start, status < 400);
+
+            if (status == 429) {
+                retryAt = System.currentTimeMillis() + retryAfterMs(response);
+                retried.addAndGet(batch.size());
+                return;
+            }
+            if (status >= 500) {
+                retryOrDrop("status " + status);
+                return;
+            }
+            if (status >= 400) {
+                logger.warning("Webhook rejected message with status " + status + ": " + response.body());
+                dropped.addAndGet(batch.size());
+                batch.clear();
+                return;
+            }
+
+            sentLines.addAndGet(batch.size());
+            sentMessages.incrementAndGet();
+            batch.clear();
+        } catch (Exception e) {
+            latency.recordSince(start, false);
+            retryOrDrop(e.getMessage());
+        }
+    }
+
+    // Takes lines from the head of the queue while they fit in one message, counted as tagged in case
+    // the batch ends up mixing usernames; the first line is always taken
+    private void fillBatch() {
+        int length = 0;
+        Line head;
+        while ((head = queue.peek()) != null) {
+            int added = tagged(head).length() + (batch.isEmpty() ? 0 : 1);
+            if (!batch.isEmpty() && length + added > MAX_CONTENT) {
+                break;
+            }
+            batch.add(queue.poll());
+            length += added;
+        }
+    }
+
+    private static String tagged(Line line) {
+        return "**" + line.username() + "** " + line.content();
+    }
+
+    private void retryOrDrop(String reason) {
+        if (++attempts < MAX_ATTEMPTS) {
+            retried.addAndGet(batch.size());
+            return;
+        }
+        logger.warning("Failed to send webhook message after " + attempts + " attempts: " + reason);
+        dropped.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    private long retryAfterMs(HttpResponse<String> response) {
+        // Discord sends Retry-After in seconds, and retry_after (seconds, fractional) in the body
+        try {
+            JsonObject body = gson.fromJson(response.body(), JsonObject.class);
+            if (body != null && body.has("retry_after")) {
+                return (long) Math.ceil(body.get("retry_after").getAsDouble() * 1000);
+            }
+        } catch (Exception ignored) {
+        }
+        try {
+            return response.headers().firstValue("Retry-After")
+                    .map(value -> (long) Math.ceil(Double.parseDouble(value) * 1000))
+                    .orElse(1000L);
+        } catch (NumberFormatException e) {
+            return 1000L;
+        }
+    }
+
+    // Logs a summary whenever lines were retried or dropped since the last report
+    private void report() {
+        long now = System.currentTimeMillis();
+        if (now - lastReport < REPORT_INTERVAL_MS) {
+            return;
+        }
+        lastReport = now;
+
+        long currentDropped = dropped.get();
+        long currentRetried = retried.get();
+        if (currentDropped != reportedDropped || currentRetried != reportedRetried) {
+            logger.info(String.format("Webhook: %d lines sent in %d messages, %d retried, %d dropped, %d queued",
+                    sentLines.get(), sentMessages.get(), currentRetried, currentDropped, queue.size()));
+            reportedDropped = currentDropped;
+            reportedRetried = currentRetried;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ai.viralmind.viralplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Logger;
+
+/**
+ * In-memory copy of the challenge whitelist, keyed by lowercase username.
+ * Lookups are served from memory; the snapshot is revalidated in the background once it
+ * is older than the TTL (stale-while-revalidate) using ETag / Last-Modified, and all
+ * concurrent fetches share a single request.
+ */
+public class WhitelistIndex {
+    public record Entry(String username, String address, double balance) {
+    }
+
+    // A miss only triggers a fetch if the snapshot is older than this, so unknown names can't hammer the API
+    private static final long MISS_REFRESH_MS = 1000;
+
+    private final HttpTransport transport;
+    private final URI uri;
+    private final Gson gson;
+    private final Logger logger;
+    private final long ttlMs;
+    private final LatencyHistogram latency;
+
+    private volatile Map<String, Entry> entries = Map.of();
+    private volatile long fetchedAt; // 0 until the first successful fetch
+    private String etag;
+    private String lastModified;
+    private CompletableFuture<Void> inFlight;
+
+    public WhitelistIndex(HttpTransport transport, URI uri, Gson gson, Logger logger, long ttlMs,
+            LatencyHistogram latency) {
+        this.transport = transport;
+        this.uri = uri;
+        this.gson = gson;
+        this.logger = logger;
+        this.ttlMs = ttlMs;
+        this.latency = latency;
+    }
+
+    // Completes with the whitelist entry for a username, or null if it isn't whitelisted
+    public CompletableFuture<Entry> lookup(String username) {
+        String key = username.toLowerCase(Locale.ROOT);
+        long age = System.currentTimeMillis() - fetchedAt;
+
+        if (fetchedAt == 0) {
+            return refresh().thenApply(v -> entries.get(key));
+        }
+
+        Entry entry = entries.get(key);
+        if (entry == null && age > MISS_REFRESH_MS) {
+            // The player may have been whitelisted since the last fetch; fall back to the snapshot if it fails
+            return refresh().handle((v, error) -> entries.get(key));
+        }
+        if (age > ttlMs) {
+            refresh();
+        }
+        return CompletableFuture.completedFuture(entry);
+    }
+
+    // Current snapshot, without triggering a fetch
+    public Map<String, Entry> snapshot() {
+        return entries;
+    }
+
+    // Starts a conditional fetch, or joins the one already in flight
+    public synchronized CompletableFuture<Void> refresh() {
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        HttpRequest.Builder builder = transport.get(uri);
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> future = transport.sendAsync(builder.build()).thenAccept(this::apply);
+        inFlight = future;
+        future.whenComplete((v, error) -> {
+            latency.recordSince(start, error == null);
+            synchronized (this) {
+                inFlight = null;
+            }
+            if (error != null) {
+                logger.warning("Failed to refresh whitelist: " + unwrap(error).getMessage());
+            }
+        });
+        return future;
+    }
+
+    private void apply(HttpResponse<String> response) {
+        if (response.statusCode() == 304) {
+            fetchedAt = System.currentTimeMillis();
+            return;
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+
+        Map<String, Entry> parsed = parse(gson, response.body());
+        synchronized (this) {
+            etag = response.headers().firstValue("ETag").orElse(null);
+            lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        }
+        entries = parsed;
+        fetchedAt = System.currentTimeMillis();
+    }
+
+    // Parses a {"whitelist": [...]} response into a map keyed by lowercase username
+    public static Map<String, Entry> parse(Gson gson, String json) {
+        JsonArray whitelist = gson.fromJson(json, JsonObject.class).getAsJsonArray("whitelist");
+        Map<String, Entry> parsed = new HashMap<>(whitelist.size() * 2);
+        for (JsonElement element : whitelist) {
+            JsonObject entry = element.getAsJsonObject();
+            if (!isPresent(entry, "username")) {
+                continue;
+            }
+            String username = entry.get("username").getAsString();
+            String address = isPresent(entry, "address") ? entry.get("address").getAsString() : "";
+            double balance = isPresent(entry, "viral_balance") ? entry.get("viral_balance").getAsDouble() : 0;
+            parsed.put(username.toLowerCase(Locale.ROOT), new Entry(username, address, balance));
+        }
+        return parsed;
+    }
+
+    private static boolean isPresent(JsonObject object, String field) {
+        return object.has(field) && !object.get(field).isJsonNull();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
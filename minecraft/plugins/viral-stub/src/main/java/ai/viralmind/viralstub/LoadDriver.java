@@ -0,0 +1,233 @@
+package ai.viralmind.viralstub;
+
+import ai.viralmind.viralplugin.ChatForwarder;
+import ai.viralmind.viralplugin.ChatHistoryReader;
+import ai.viralmind.viralplugin.HttpTransport;
+import ai.viralmind.viralplugin.LatencyHistogram;
+import ai.viralmind.viralplugin.TierReconciler;
+import ai.viralmind.viralplugin.WebhookDispatcher;
+import ai.viralmind.viralplugin.WhitelistIndex;
+import com.google.gson.Gson;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Replays join storms, chat floods, webhook bursts and challenge polls against the plugin's own
+ * client classes (WhitelistIndex, ChatForwarder, WebhookDispatcher, ChatHistoryReader), with an
+ * embedded StubBackend on a free port standing in for the API. Prints throughput and p50/p99/max
+ * latency per scenario. Takes the stub's options plus --joins, --join-threads, --chat,
+ * --chat-threads, --chat-rate (messages per second, 0 for as fast as possible), --webhook and --polls.
+ */
+public class LoadDriver {
+    private static final long DRAIN_TIMEOUT_MS = 120000;
+
+    private final StubBackend stub;
+    private final String origin;
+    private final Gson gson = new Gson();
+    private final HttpTransport http;
+    private final Logger logger = Logger.getLogger("LoadDriver");
+    private final int whitelistSize;
+
+    public LoadDriver(StubBackend stub, int whitelistSize) {
+        this.stub = stub;
+        this.origin = "http://localhost:" + stub.port();
+        this.http = new HttpTransport(Executors.newCachedThreadPool(), gson, Duration.ofSeconds(5),
+                Duration.ofSeconds(10));
+        this.whitelistSize = whitelistSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> flags = StubBackend.parseFlags(args);
+        flags.putIfAbsent("port", "0");
+        flags.putIfAbsent("interval", "0");
+        flags.putIfAbsent("history", "2000");
+        flags.putIfAbsent("whitelist", "5000");
+        StubBackend.Options options = StubBackend.Options.parse(flags);
+
+        StubBackend stub = new StubBackend(options);
+        stub.start(options.port());
+        LoadDriver driver = new LoadDriver(stub, options.whitelistSize());
+        System.out.printf("Stub on %s: latency %d+%dms, error rate %.3f, history %d, whitelist %d%n",
+                driver.origin, options.latencyMs(), options.jitterMs(), options.errorRate(), options.historySize(),
+                options.whitelistSize());
+        System.out.printf("%-10s %8s %7s %10s %9s %9s %9s%n", "scenario", "ops", "errors", "ops/s", "p50 ms",
+                "p99 ms", "max ms");
+
+        try {
+            driver.joinStorm(Integer.parseInt(flags.getOrDefault("joins", "2000")),
+                    Integer.parseInt(flags.getOrDefault("join-threads", "64")));
+            driver.chatFlood(Integer.parseInt(flags.getOrDefault("chat", "20000")),
+                    Integer.parseInt(flags.getOrDefault("chat-threads", "8")),
+                    Integer.parseInt(flags.getOrDefault("chat-rate", "2000")));
+            driver.webhookBurst(Integer.parseInt(flags.getOrDefault("webhook", "500")));
+            driver.polls(Integer.parseInt(flags.getOrDefault("polls", "200")));
+        } finally {
+            stub.stop();
+        }
+        System.exit(0);
+    }
+
+    // Players join all at once; each join is a whitelist lookup plus the balance check onPreLogin does
+    public void joinStorm(int joins, int threads) throws Exception {
+        LatencyHistogram joinLatency = new LatencyHistogram();
+        LatencyHistogram fetchLatency = new LatencyHistogram();
+        WhitelistIndex index = new WhitelistIndex(http,
+                URI.create(origin + "/api/minecraft/whitelist?name=stub"), gson, logger, 30000, fetchLatency);
+        AtomicInteger admitted = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < joins; i++) {
+            // One in ten names is unknown, which is what makes the index refetch on a miss
+            String name = i % 10 == 9 ? "stranger_" + i : "player_" + (i % Math.max(1, whitelistSize));
+            results.add(pool.submit(() -> {
+                start.await();
+                long begin = System.nanoTime();
+                try {
+                    WhitelistIndex.Entry entry = index.lookup(name).get(10, TimeUnit.SECONDS);
+                    joinLatency.recordSince(begin, true);
+                    if (entry != null && entry.balance() >= TierReconciler.MIN_BALANCE) {
+                        admitted.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    joinLatency.recordSince(begin, false);
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+
+        report("join", joinLatency, joinLatency.count(), elapsed);
+        report("  fetch", fetchLatency, fetchLatency.count(), elapsed);
+        System.out.printf("  %d admitted, %d whitelist requests (%d not modified)%n", admitted.get(),
+                stub.counter("whitelist"), stub.counter("whitelist.not-modified"));
+    }
+
+    // Many players chatting at once through the batching forwarder; measures end-to-end delivery
+    public void chatFlood(int messages, int threads, int ratePerSecond) throws Exception {
+        LatencyHistogram batchLatency = new LatencyHistogram();
+        long receivedBefore = stub.counter("chat.received");
+        ChatForwarder forwarder = new ChatForwarder(http, origin + "/api/minecraft/chat/batch", "stub_secret", logger,
+                error -> {
+                }, 1000, 50, 20, batchLatency);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // Message i is due at i / rate seconds, so the threads together hold the rate
+        long intervalNanos = ratePerSecond > 0 ? 1_000_000_000L / ratePerSecond : 0;
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                for (int i = thread; i < messages; i += threads) {
+                    long wait = begin + i * intervalNanos - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    forwarder.enqueue("player_" + (i % 100), "flood message " + i);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        awaitDrain(() -> forwarder.sent() + forwarder.dropped() >= messages);
+        long elapsed = System.nanoTime() - begin;
+        forwarder.shutdown();
+
+        report("chat", batchLatency, forwarder.sent(), elapsed);
+        System.out.printf("  %d sent in %d batches, %d dropped, %d received by the stub%n", forwarder.sent(),
+                forwarder.batches(), forwarder.dropped(), stub.counter("chat.received") - receivedBefore);
+    }
+
+    // A burst of relay lines against the Discord stand-in and its rate limit
+    public void webhookBurst(int lines) throws Exception {
+        LatencyHistogram postLatency = new LatencyHistogram();
+        WebhookDispatcher dispatcher = new WebhookDispatcher(http, origin + "/stub/webhook", gson, logger,
+                1000, 500, postLatency);
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            dispatcher.enqueue("relay line " + i, "Viral Steve");
+        }
+        awaitDrain(() -> dispatcher.sentLines() + dispatcher.dropped() >= lines);
+        long elapsed = System.nanoTime() - begin;
+        dispatcher.shutdown();
+
+        report("webhook", postLatency, dispatcher.sentLines(), elapsed);
+        System.out.printf("  %d lines in %d posts, %d rate limited, %d dropped%n", dispatcher.sentLines(),
+                postLatency.count(), stub.counter("webhook.limited"), dispatcher.dropped());
+    }
+
+    // Polls get-challenge newest first, reading only what is new, while chat keeps arriving
+    public void polls(int polls) throws Exception {
+        LatencyHistogram pollLatency = new LatencyHistogram();
+        Set<String> seen = new HashSet<>();
+        long relayed = 0;
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < polls; i++) {
+            stub.addMessage("user", "poll message " + i);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<InputStream> response = http.sendStreaming(
+                        http.get(URI.create(origin + "/api/challenges/get-challenge?name=stub&order=desc")).build());
+                if (response.statusCode() != 200) {
+                    response.body().close();
+                    pollLatency.recordSince(start, false);
+                    continue;
+                }
+                List<ChatHistoryReader.Message> unseen = ChatHistoryReader.read(HttpTransport.body(response),
+                        "chatHistory", seen::contains);
+                pollLatency.recordSince(start, true);
+                for (ChatHistoryReader.Message message : unseen) {
+                    seen.add(message.id());
+                }
+                relayed += unseen.size();
+            } catch (Exception e) {
+                pollLatency.recordSince(start, false);
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        report("poll", pollLatency, pollLatency.count(), elapsed);
+        System.out.printf("  %d messages relayed%n", relayed);
+    }
+
+    private void awaitDrain(BooleanSupplier done) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (!done.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void report(String scenario, LatencyHistogram latency, long ops, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-10s %8d %7d %10.1f %9.2f %9.2f %9.2f%n", scenario, ops, latency.errors(),
+                ops / seconds, latency.percentileMicros(0.5) / 1000.0, latency.percentileMicros(0.99) / 1000.0,
+                latency.maxMicros() / 1000.0);
+    }
+}
@@ -0,0 +1,526 @@
+package ai.viralmind.viralstub;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Offline stand-in for the backend endpoints the plugin talks to: get-challenge (full history),
+ * minecraft/messages (cursor delta, single and batched), the challenge-chat SSE stream, whitelist,
+ * reward, chat (single and batched) and a Discord webhook. Every API response can be delayed and
+ * failed at a configurable rate, and the history and whitelist are pre-filled to a configurable
+ * size, so the same stub serves manual testing and LoadDriver runs.
+ */
+public class StubBackend {
+    private static final long HEARTBEAT_MS = 15000;
+    private static final long WEBHOOK_WINDOW_MS = 2000;
+    // Smaller responses go out uncompressed, as behind a typical reverse proxy
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    // Command line options, given as --name=value
+    public record Options(int port, String challenge, long intervalMs, long latencyMs, long jitterMs,
+            double errorRate, int historySize, int whitelistSize, int webhookLimit) {
+
+        public static Options parse(Map<String, String> flags) {
+            return new Options(
+                    Integer.parseInt(flags.getOrDefault("port", "8080")),
+                    flags.getOrDefault("challenge", "viral_lua"),
+                    Long.parseLong(flags.getOrDefault("interval", "2000")),
+                    Long.parseLong(flags.getOrDefault("latency", "0")),
+                    Long.parseLong(flags.getOrDefault("jitter", "0")),
+                    Double.parseDouble(flags.getOrDefault("error-rate", "0")),
+                    Integer.parseInt(flags.getOrDefault("history", "0")),
+                    Integer.parseInt(flags.getOrDefault("whitelist", "0")),
+                    Integer.parseInt(flags.getOrDefault("webhook-limit", "5")));
+        }
+    }
+
+    private final Gson gson = new Gson();
+    private final Options options;
+    private final List<JsonObject> messages = new ArrayList<>();
+    private final List<BlockingQueue<String>> streamClients = new CopyOnWriteArrayList<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final byte[] whitelistBody;
+    private final String whitelistEtag;
+    private HttpServer server;
+
+    // Guarded by this
+    private String winner;
+    private String rewardClaimId;
+    private String rewardTransaction;
+    private long webhookWindowStart;
+    private int webhookWindowCount;
+
+    public StubBackend(Options options) {
+        this.options = options;
+        this.whitelistBody = gson.toJson(buildWhitelist(options.whitelistSize())).getBytes(StandardCharsets.UTF_8);
+        this.whitelistEtag = "\"stub-" + Integer.toHexString(Arrays.hashCode(whitelistBody)) + "\"";
+        for (int i = 0; i < options.historySize(); i++) {
+            addMessage(i % 2 == 0 ? "user" : "assistant", "Seeded message " + i);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(parseFlags(args, "port", "challenge", "interval"));
+        StubBackend stub = new StubBackend(options);
+        stub.start(options.port());
+        System.out.println("Stub backend for '" + options.challenge() + "' listening on http://localhost:"
+                + stub.port());
+
+        if (options.intervalMs() > 0) {
+            Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+                    () -> stub.addMessage("user", "Stub message at " + Instant.now()),
+                    options.intervalMs(), options.intervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Reads --name=value flags; bare arguments fill the positional names in order
+    public static Map<String, String> parseFlags(String[] args, String... positional) {
+        Map<String, String> flags = new HashMap<>();
+        int next = 0;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 2) {
+                flags.put(arg.substring(2, eq), arg.substring(eq + 1));
+            } else if (arg.startsWith("--")) {
+                flags.put(arg.substring(2), "true");
+            } else if (next < positional.length) {
+                flags.put(positional[next++], arg);
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+        }
+        return flags;
+    }
+
+    // Port 0 picks a free port; see port()
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        // Stream clients hold a thread each, so the pool must not be bounded by request count
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/challenges/get-challenge", faulty("get-challenge", this::handleGetChallenge));
+        server.createContext("/api/minecraft/messages", faulty("messages", this::handleMessages));
+        server.createContext("/api/minecraft/messages/batch", faulty("messages.batch", this::handleMessagesBatch));
+        server.createContext("/api/minecraft/whitelist", faulty("whitelist", this::handleWhitelist));
+        server.createContext("/api/minecraft/reward", faulty("reward", this::handleReward));
+        server.createContext("/api/minecraft/chat", faulty("chat", this::handleChat));
+        server.createContext("/api/minecraft/chat/batch", faulty("chat.batch", this::handleChatBatch));
+        server.createContext("/api/streams/challenge-chat", this::handleStream);
+        server.createContext("/stub/webhook", faulty("webhook", this::handleWebhook));
+        server.createContext("/stub/say", this::handleSay);
+        server.createContext("/stub/stats", this::handleStats);
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    // Requests served per endpoint, plus chat.received, webhook.lines, gzip.saved and injected.errors
+    public long counter(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter != null ? counter.get() : 0;
+    }
+
+    // Stores a chat message and pushes it to every stream subscriber
+    public JsonObject addMessage(String role, String content) {
+        JsonObject message = new JsonObject();
+        message.addProperty("_id", String.format("%024x", nextId.getAndIncrement()));
+        message.addProperty("challenge", options.challenge());
+        message.addProperty("role", role);
+        message.addProperty("content", content);
+        message.addProperty("address", "stub_address");
+        message.addProperty("date", Instant.now().toString());
+
+        synchronized (messages) {
+            messages.add(message);
+        }
+
+        JsonObject event = new JsonObject();
+        event.addProperty("type", "message");
+        event.add("message", message);
+        String frame = "data: " + gson.toJson(event) + "\n\n";
+        for (BlockingQueue<String> client : streamClients) {
+            client.offer(frame);
+        }
+        return message;
+    }
+
+    // The three fixed test players, then player_0..n with balances spread from 0 to 100k
+    private static JsonObject buildWhitelist(int size) {
+        JsonArray whitelist = new JsonArray();
+        whitelist.add(whitelistEntry("throwaway_name", "rich_player_address", 2000000));
+        whitelist.add(whitelistEntry("poor_player", "poor_player_address", 10000));
+        whitelist.add(whitelistEntry("normal_player", "normal_player_address", 50000));
+        for (int i = 0; i < size; i++) {
+            whitelist.add(whitelistEntry("player_" + i, "player_address_" + i, (i * 7919L) % 100000));
+        }
+        JsonObject response = new JsonObject();
+        response.add("whitelist", whitelist);
+        return response;
+    }
+
+    private static JsonObject whitelistEntry(String username, String address, double balance) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("username", username);
+        entry.addProperty("address", address);
+        entry.addProperty("viral_balance", balance);
+        entry.addProperty("signature", "stub_signature");
+        entry.addProperty("_id", "stub_" + username);
+        return entry;
+    }
+
+    // Counts the request, then delays it and fails it at the configured rate before handling it
+    private HttpHandler faulty(String name, HttpHandler handler) {
+        return exchange -> {
+            count(name, 1);
+            long delayMs = options.latencyMs();
+            if (options.jitterMs() > 0) {
+                delayMs += ThreadLocalRandom.current().nextLong(options.jitterMs() + 1);
+            }
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (options.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < options.errorRate()) {
+                count("injected.errors", 1);
+                exchange.getRequestBody().readAllBytes();
+                sendJson(exchange, 500, error("Internal server error"));
+                return;
+            }
+            handler.handle(exchange);
+        };
+    }
+
+    private void handleGetChallenge(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        boolean newestFirst = "desc".equals(query.get("order"));
+
+        JsonArray chatHistory = new JsonArray();
+        synchronized (messages) {
+            for (int i = 0; i < messages.size(); i++) {
+                chatHistory.add(messages.get(newestFirst ? messages.size() - 1 - i : i));
+            }
+        }
+
+        JsonObject challenge = new JsonObject();
+        challenge.addProperty("name", options.challenge());
+        challenge.addProperty("status", "active");
+
+        JsonObject response = new JsonObject();
+        response.add("challenge", challenge);
+        response.addProperty("chatHistoryOrder", newestFirst ? "desc" : "asc");
+        response.add("chatHistory", chatHistory);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleMessages(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : 100;
+
+        JsonObject response = new JsonObject();
+        response.add("messages", page(query.get("after"), limit));
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleMessagesBatch(HttpExchange exchange) throws IOException {
+        JsonObject body = readJson(exchange);
+        if (body == null || !body.has("feeds") || !body.get("feeds").isJsonArray()) {
+            sendJson(exchange, 400, error("feeds must list 1 to 20 challenges"));
+            return;
+        }
+        int limit = body.has("limit") ? body.get("limit").getAsInt() : 100;
+
+        JsonArray feeds = new JsonArray();
+        for (JsonElement element : body.getAsJsonArray("feeds")) {
+            JsonObject request = element.getAsJsonObject();
+            String name = request.get("name").getAsString();
+            JsonObject feed = new JsonObject();
+            feed.addProperty("name", name);
+            if (name.equalsIgnoreCase(options.challenge())) {
+                feed.add("messages", page(request.has("after") ? request.get("after").getAsString() : null, limit));
+            } else {
+                feed.add("messages", new JsonArray());
+                feed.addProperty("error", "Challenge not found");
+            }
+            feeds.add(feed);
+        }
+
+        JsonObject response = new JsonObject();
+        response.add("feeds", feeds);
+        sendJson(exchange, 200, response);
+    }
+
+    // User messages after the cursor, or the latest page without one; oldest first either way
+    private JsonArray page(String after, int limit) {
+        JsonArray page = new JsonArray();
+        synchronized (messages) {
+            List<JsonObject> matching = new ArrayList<>();
+            for (JsonObject message : messages) {
+                // Ids are fixed-width hex, so string order is insertion order
+                if (message.get("role").getAsString().equals("user")
+                        && (after == null || message.get("_id").getAsString().compareTo(after) > 0)) {
+                    matching.add(message);
+                }
+            }
+            int from = after == null ? Math.max(0, matching.size() - limit) : 0;
+            for (int i = from; i < matching.size() && page.size() < limit; i++) {
+                page.add(matching.get(i));
+            }
+        }
+        return page;
+    }
+
+    private void handleWhitelist(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("ETag", whitelistEtag);
+        if (whitelistEtag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            count("whitelist.not-modified", 1);
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        send(exchange, 200, whitelistBody);
+    }
+
+    // One winner per run; a repeated claim id gets the original transaction back
+    private void handleReward(HttpExchange exchange) throws IOException {
+        JsonObject body = readJson(exchange);
+        if (body == null || !body.has("username") || !body.has("secret")) {
+            sendJson(exchange, 400, error("Missing required fields"));
+            return;
+        }
+        String username = body.get("username").getAsString();
+        String claimId = body.has("claimId") ? body.get("claimId").getAsString() : null;
+
+        String transaction;
+        synchronized (this) {
+            if (winner != null && (claimId == null || !claimId.equals(rewardClaimId))) {
+                sendJson(exchange, 409, error("Reward has already been claimed"));
+                return;
+            }
+            if (winner == null) {
+                winner = username;
+                rewardClaimId = claimId;
+                rewardTransaction = "stub_tx_" + Long.toHexString(System.nanoTime());
+                addMessage("assistant", "🏆 Tournament concluded! Winner: " + username);
+            }
+            transaction = rewardTransaction;
+        }
+
+        JsonObject response = new JsonObject();
+        response.addProperty("success", true);
+        response.addProperty("transaction", transaction);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleChat(HttpExchange exchange) throws IOException {
+        JsonObject body = readJson(exchange);
+        if (body == null || !body.has("username") || !body.has("content")) {
+            sendJson(exchange, 400, error("Missing required fields"));
+            return;
+        }
+        storeChat(body);
+        count("chat.received", 1);
+
+        JsonObject response = new JsonObject();
+        response.addProperty("success", true);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleChatBatch(HttpExchange exchange) throws IOException {
+        JsonObject body = readJson(exchange);
+        if (body == null || !body.has("messages") || !body.get("messages").isJsonArray()) {
+            sendJson(exchange, 400, error("Missing required fields"));
+            return;
+        }
+        JsonArray batch = body.getAsJsonArray("messages");
+        if (batch.size() > 100) {
+            sendJson(exchange, 400, error("Too many messages (max 100)"));
+            return;
+        }
+        for (JsonElement message : batch) {
+            storeChat(message.getAsJsonObject());
+        }
+        count("chat.received", batch.size());
+
+        JsonObject response = new JsonObject();
+        response.addProperty("success", true);
+        response.addProperty("count", batch.size());
+        sendJson(exchange, 200, response);
+    }
+
+    private void storeChat(JsonObject message) {
+        String username = message.get("username").getAsString();
+        addMessage(username.equals("viral_steve") ? "assistant" : "player", message.get("content").getAsString());
+    }
+
+    // Answers like Discord: 204 on success, 429 with retry_after past webhookLimit posts per window
+    private void handleWebhook(HttpExchange exchange) throws IOException {
+        JsonObject body = readJson(exchange);
+        if (options.webhookLimit() > 0) {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (now - webhookWindowStart >= WEBHOOK_WINDOW_MS) {
+                    webhookWindowStart = now;
+                    webhookWindowCount = 0;
+                }
+                if (++webhookWindowCount > options.webhookLimit()) {
+                    count("webhook.limited", 1);
+                    JsonObject limited = new JsonObject();
+                    limited.addProperty("message", "You are being rate limited.");
+                    limited.addProperty("retry_after", (webhookWindowStart + WEBHOOK_WINDOW_MS - now) / 1000.0);
+                    sendJson(exchange, 429, limited);
+                    return;
+                }
+            }
+        }
+        if (body == null || !body.has("content")) {
+            sendJson(exchange, 400, error("Cannot send an empty message"));
+            return;
+        }
+        count("webhook.lines", body.get("content").getAsString().split("\n").length);
+        exchange.sendResponseHeaders(204, -1);
+        exchange.close();
+    }
+
+    private void handleStream(HttpExchange exchange) throws IOException {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        streamClients.add(queue);
+        try (OutputStream out = exchange.getResponseBody()) {
+            JsonObject hello = new JsonObject();
+            hello.addProperty("type", "connection");
+            hello.addProperty("message", "Connected to chat stream for " + options.challenge());
+            write(out, "data: " + gson.toJson(hello) + "\n\n");
+
+            while (true) {
+                String frame = queue.poll(HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+                write(out, frame != null ? frame : ": ping\n\n");
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client went away
+        } finally {
+            streamClients.remove(queue);
+        }
+    }
+
+    private void handleSay(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, new JsonObject());
+            return;
+        }
+        String content = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        sendJson(exchange, 200, addMessage("user", content));
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        JsonObject stats = new JsonObject();
+        counters.forEach((name, value) -> stats.addProperty(name, value.get()));
+        synchronized (messages) {
+            stats.addProperty("history", messages.size());
+        }
+        sendJson(exchange, 200, stats);
+    }
+
+    private void count(String name, long n) {
+        counters.computeIfAbsent(name, k -> new AtomicLong()).addAndGet(n);
+    }
+
+    private JsonObject readJson(HttpExchange exchange) {
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, JsonObject.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error;
+    }
+
+    private void write(OutputStream out, String frame) throws IOException {
+        out.write(frame.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        send(exchange, status, gson.toJson(body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Gzips the JSON body when the client accepts it and it is worth compressing
+    private void send(HttpExchange exchange, int status, byte[] json) throws IOException {
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        byte[] bytes = json;
+        if (accept != null && accept.contains("gzip") && json.length >= GZIP_MIN_BYTES) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            count("gzip.saved", json.length - bytes.length);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+}